@@ -0,0 +1,100 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.sonar.api.design.Dependency;
+import org.sonar.api.resources.Library;
+import org.sonar.api.resources.Project;
+
+/**
+ * Generates whitelists, licenses and dependency graphs of configurable size for the benchmarks.
+ */
+final class BenchmarkData {
+
+  static final int ARTIFACTS_PER_GROUP = 10;
+  static final int LICENSES = 50;
+
+  private BenchmarkData() {
+  }
+
+  static String groupId(int index) {
+    return "org.example.group" + (index / ARTIFACTS_PER_GROUP);
+  }
+
+  static String libraryKey(int index) {
+    return groupId(index) + ":artifact-" + index;
+  }
+
+  /**
+   * Every fifth entry is a groupId prefix, the others are full library keys.
+   */
+  static String allowedDependenciesXml(int size) {
+    StringBuilder xml = new StringBuilder("<allowed-dependencies>");
+    for (int i = 0; i < size; i++) {
+      String key = i % 5 == 0 ? groupId(i) + ":" : libraryKey(i);
+      xml.append("<dependency><key>").append(key).append("</key><versionRange>[1.0,").append(2 + i % 3)
+          .append(".0)</versionRange><licenseId>LIC-").append(i % LICENSES).append("</licenseId></dependency>");
+    }
+    return xml.append("</allowed-dependencies>").toString();
+  }
+
+  static String licensesXml() {
+    StringBuilder xml = new StringBuilder("<licenses>");
+    for (int i = 0; i < LICENSES; i++) {
+      xml.append("<license><id>LIC-").append(i).append("</id><title>License ").append(i)
+          .append("</title><description><![CDATA[");
+      for (int line = 0; line < 100; line++) {
+        xml.append("Terms and conditions of license ").append(i).append(", paragraph ").append(line).append(".\n");
+      }
+      xml.append("]]></description><url>http://licenses.example.org/").append(i).append("</url><commercial>")
+          .append(i % 7 == 0).append("</commercial><sourceType>").append(SourceType.values()[i % SourceType.values().length])
+          .append("</sourceType></license>");
+    }
+    return xml.append("</licenses>").toString();
+  }
+
+  /**
+   * A module depending on {@code width} libraries, each layer of libraries depends on every library of the next layer.
+   * Some libraries are unlisted (index beyond the whitelist) or have a version outside of the allowed range.
+   */
+  static Set<Dependency> dependencies(Project module, int libraries, int width, int whitelistSize) {
+    Set<Dependency> dependencies = new HashSet<Dependency>();
+    Library[] previous = null;
+    int index = 0;
+    while (index < libraries) {
+      Library[] current = new Library[Math.min(width, libraries - index)];
+      for (int i = 0; i < current.length; i++, index++) {
+        int keyIndex = (index * 7) % (whitelistSize + whitelistSize / 10);
+        current[i] = new Library(libraryKey(keyIndex), index % 11 == 0 ? "9.0" : "1.5");
+        if (previous == null) {
+          dependencies.add(new Dependency(module, current[i]).setUsage("compile"));
+        }
+        else {
+          for (Library from : previous) {
+            dependencies.add(new Dependency(from, current[i]).setUsage(i % 4 == 0 ? "test" : "compile"));
+          }
+        }
+      }
+      previous = current;
+    }
+    return dependencies;
+  }
+}
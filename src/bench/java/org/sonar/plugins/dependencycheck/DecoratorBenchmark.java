@@ -0,0 +1,121 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.io.File;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.sonar.api.config.Settings;
+import org.sonar.api.design.Dependency;
+import org.sonar.api.resources.Project;
+
+/**
+ * The transitive walk and a full {@link DependencyCheckDecorator#decorate} of a module.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DecoratorBenchmark {
+
+  @Param({"5000"})
+  private int whitelistSize;
+
+  @Param({"600"})
+  private int libraries;
+
+  @Param({"20"})
+  private int width;
+
+  @Param({"1", "4"})
+  private int parallelism;
+
+  private Project module;
+  private Set<Dependency> dependencies;
+  private Settings settings;
+  private DependencyPolicyCache policyCache;
+  private DependencyGraphCache graphCache;
+  private DependencyCheckResults results;
+  private DependencyCheckExecutor executor;
+  private VerdictCache verdictCache;
+  private ModuleResultCache moduleResults;
+
+  @Setup
+  public void setUp() {
+    module = new Project("org.example:module");
+    dependencies = BenchmarkData.dependencies(module, libraries, width, whitelistSize);
+
+    settings = new Settings();
+    settings.setProperty(DependencyCheckMetrics.LIBRARY_GLOBAL_PROPERTY, BenchmarkData.allowedDependenciesXml(whitelistSize));
+    settings.setProperty(DependencyCheckMetrics.LICENSE_PROPERTY, BenchmarkData.licensesXml());
+    settings.setProperty(DependencyCheckMetrics.SCOPE_COMPILE_PROPERTY, true);
+    settings.setProperty(DependencyCheckMetrics.SCOPE_RUNTIME_PROPERTY, true);
+    settings.setProperty(DependencyCheckMetrics.PARALLELISM_PROPERTY, parallelism);
+
+    policyCache = new DependencyPolicyCache();
+    graphCache = new DependencyGraphCache();
+    results = new DependencyCheckResults();
+    executor = new DependencyCheckExecutor();
+    verdictCache = new VerdictCache(new File(System.getProperty("java.io.tmpdir"), VerdictCache.FILE_NAME));
+    moduleResults = new ModuleResultCache(new File(System.getProperty("java.io.tmpdir"), ModuleResultCache.FILE_NAME));
+  }
+
+  @TearDown
+  public void tearDown() {
+    executor.stop();
+  }
+
+  @Benchmark
+  public Object transitiveWalk() {
+    DependencyGraph graph = new DependencyGraph(dependencies, new ScopeFilter(EnumSet.of(DependencyScope.COMPILE, DependencyScope.RUNTIME)));
+    return graph.findTransitiveDependencies(module.getKey());
+  }
+
+  /**
+   * Decorates the module with the policy and graph already cached, as for every module but the first of an analysis.
+   */
+  @Benchmark
+  public Object decorate() {
+    StubResourcePerspectives perspectives = new StubResourcePerspectives();
+    StubDecoratorContext context = new StubDecoratorContext(module, dependencies);
+    new DependencyCheckDecorator(settings, perspectives, policyCache, graphCache, results, executor, verdictCache, moduleResults).decorate(module, context);
+    return context.getMeasure(DependencyCheckMetrics.DEPENDENCY);
+  }
+
+  /**
+   * Decorates the module with empty caches, as for the first module of an analysis.
+   */
+  @Benchmark
+  public Object decorateFirstModule() {
+    StubResourcePerspectives perspectives = new StubResourcePerspectives();
+    StubDecoratorContext context = new StubDecoratorContext(module, dependencies);
+    new DependencyCheckDecorator(settings, perspectives, new DependencyPolicyCache(), new DependencyGraphCache(), results, executor, verdictCache, moduleResults)
+        .decorate(module, context);
+    return context.getMeasure(DependencyCheckMetrics.DEPENDENCY);
+  }
+}
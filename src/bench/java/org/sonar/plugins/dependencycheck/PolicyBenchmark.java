@@ -0,0 +1,104 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Loading the whitelist and licenses, matching libraries and evaluating version ranges.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PolicyBenchmark {
+
+  private static final int LOOKUPS = 1000;
+
+  @Param({"500", "5000"})
+  private int whitelistSize;
+
+  private String allowedDependenciesXml;
+  private String licensesXml;
+  private List<AllowedDependency> allowedDependencies;
+  private AllowedDependencyIndex index;
+  private String[] keys;
+  private VersionRange range;
+
+  @Setup
+  public void setUp() throws Exception {
+    allowedDependenciesXml = BenchmarkData.allowedDependenciesXml(whitelistSize);
+    licensesXml = BenchmarkData.licensesXml();
+    allowedDependencies = AllowedDependencies.loadFromXml(allowedDependenciesXml);
+    index = new AllowedDependencyIndex(allowedDependencies);
+    keys = new String[LOOKUPS];
+    for (int i = 0; i < LOOKUPS; i++) {
+      // about a tenth of the keys is not listed
+      keys[i] = BenchmarkData.libraryKey((i * 31) % (whitelistSize + whitelistSize / 10));
+    }
+    range = Utilities.parseVersionRange("[3.1.4.RELEASE,3.2),[3.2.8.RELEASE,3.3),[4.0.7.RELEASE,)");
+  }
+
+  @Benchmark
+  public Object loadAllowedDependencies() {
+    return AllowedDependencies.loadFromXml(allowedDependenciesXml);
+  }
+
+  @Benchmark
+  public Object loadLicenses() {
+    return Licenses.loadFromXml(licensesXml);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public void searchLinear(Blackhole blackhole) {
+    for (String key : keys) {
+      blackhole.consume(LinearDependencySearch.search(key, allowedDependencies));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public void searchIndex(Blackhole blackhole) {
+    for (String key : keys) {
+      blackhole.consume(index.find(key));
+    }
+  }
+
+  @Benchmark
+  public boolean versionAllowed() {
+    return Utilities.versionAllowed("4.0.9.RELEASE", "[3.1.4.RELEASE,3.2),[3.2.8.RELEASE,3.3),[4.0.7.RELEASE,)");
+  }
+
+  @Benchmark
+  public boolean versionAllowedParsed() {
+    return Utilities.versionAllowed("4.0.9.RELEASE", range);
+  }
+}
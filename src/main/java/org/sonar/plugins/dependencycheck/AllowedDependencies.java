@@ -17,43 +17,33 @@
  */
 package org.sonar.plugins.dependencycheck;
 
-import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
-import javax.xml.bind.annotation.XmlElement;
-import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.stream.XMLStreamException;
 
 import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
- * Wrapper for XML serializing dependencies.
+ * Reads the allowed dependencies from XML.
+ * <p>
+ * The XML is streamed, so only the resulting dependencies are kept in memory. License ids and version ranges repeat
+ * a lot and are shared per load.
  */
-@XmlRootElement(name = "allowed-dependencies")
-public class AllowedDependencies {
+public final class AllowedDependencies {
+  private static final Logger LOG = LoggerFactory.getLogger(AllowedDependencies.class);
 
-  private static JAXBContext jaxbContext;
-  static {
-    try {
-      jaxbContext = JAXBContext.newInstance(AllowedDependencies.class);
-    }
-    catch (JAXBException e) {
-      throw new IllegalStateException("Failure creating JAXBContext for AllowedDependencies", e);
-    }
-  }
-
-  @XmlElement(name = "dependency")
-  private List<AllowedDependency> dependencies;
-
-  public List<AllowedDependency> getDependencies() {
-    return dependencies;
+  private AllowedDependencies() {
   }
 
   /**
-   * Load list of allowed dependecies from XML.
+   * Load list of allowed dependecies from XML. The version ranges are parsed here, invalid ones are reported once.
    * @param xml XML string
    * @return list of dependencies
    */
@@ -63,13 +53,24 @@ public class AllowedDependencies {
       return Collections.emptyList();
     }
 
+    final List<AllowedDependency> dependencies = new ArrayList<AllowedDependency>();
+    PolicyXmlReader reader = new PolicyXmlReader("dependency", Collections.<String>emptySet(),
+      new HashSet<String>(Arrays.asList("versionRange", "licenseId")));
     try {
-      Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-      AllowedDependencies allowedDependencies = (AllowedDependencies) unmarshaller.unmarshal(new StringReader(xml));
-      return allowedDependencies.dependencies;
+      reader.read(xml, new PolicyXmlReader.RecordHandler() {
+        @Override
+        public void record(Map<String, String> fields) {
+          AllowedDependency dependency = new AllowedDependency(fields.get("key"), fields.get("versionRange"), fields.get("licenseId"), null);
+          if (dependency.getParsedVersionRange() == null) {
+            LOG.warn("Invalid version range '{}' for allowed dependency {} - no version will be accepted", dependency.getVersionRange(), dependency.getKey());
+          }
+          dependencies.add(dependency);
+        }
+      });
     }
-    catch (JAXBException e) {
+    catch (XMLStreamException e) {
       throw new IllegalStateException("Failure parsing XML for allowed dependencies", e);
     }
+    return dependencies;
   }
 }
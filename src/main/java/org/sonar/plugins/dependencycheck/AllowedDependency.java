@@ -17,28 +17,20 @@
  */
 package org.sonar.plugins.dependencycheck;
 
-import javax.xml.bind.annotation.XmlElement;
+import org.apache.commons.lang.ObjectUtils;
+import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
+import org.apache.maven.artifact.versioning.VersionRange;
 
 /**
- * This class stores a Dependency which is used by the plugin.
+ * This class stores a Dependency which is used by the plugin. Instances are immutable and compare by their values,
+ * so they can be shared by all modules and threads of an analysis.
  */
-public class AllowedDependency {
-  @XmlElement
-  private String key;
-  @XmlElement
-  private String versionRange;
-  @XmlElement
-  private String licenseId;
-  private License license;
-
-  /**
-   * Standard constructor for a {@link AllowedDependency} - initializes everything as empty string or null.
-   */
-  public AllowedDependency() {
-    this.key = "";
-    this.versionRange = "";
-    this.license = null;
-  }
+public final class AllowedDependency {
+  private final String key;
+  private final String versionRange;
+  private final String licenseId;
+  private final License license;
+  private final VersionRange parsedVersionRange;
 
   /**
    * Constructor for a {@link AllowedDependency}
@@ -48,15 +40,62 @@ public class AllowedDependency {
    * @param license - license of the dependency
    */
   public AllowedDependency(String title, String versionRange, License license) {
-    this.key = title;
+    this(title, versionRange, license != null ? license.getId() : null, license);
+  }
+
+  /**
+   * Constructor for a {@link AllowedDependency} read from XML, the license is resolved later by its id.
+   *
+   * @param key - key (prefix) of the dependency
+   * @param versionRange - version range of the dependency
+   * @param licenseId - id of the license of the dependency
+   * @param license - license of the dependency, may be null
+   */
+  AllowedDependency(String key, String versionRange, String licenseId, License license) {
+    this(key, versionRange, licenseId, license, parseVersionRange(versionRange));
+  }
+
+  private AllowedDependency(String key, String versionRange, String licenseId, License license, VersionRange parsedVersionRange) {
+    this.key = key;
     this.versionRange = versionRange;
+    this.licenseId = licenseId;
     this.license = license;
+    this.parsedVersionRange = parsedVersionRange;
+  }
+
+  /**
+   * Parses the version range so it does not have to be parsed again for each checked dependency.
+   *
+   * @return the parsed range or null if the version range is invalid (no version is allowed then)
+   */
+  private static VersionRange parseVersionRange(String versionRange) {
+    try {
+      return Utilities.parseVersionRange(versionRange);
+    }
+    catch (InvalidVersionSpecificationException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @param resolvedLicense the license for the license id
+   * @return this allowed dependency with the license
+   */
+  public AllowedDependency withLicense(License resolvedLicense) {
+    return new AllowedDependency(key, versionRange, licenseId, resolvedLicense, parsedVersionRange);
   }
 
   public String getVersionRange() {
     return versionRange;
   }
 
+  /**
+   * @return the parsed version range or null if the version range is invalid
+   */
+  public VersionRange getParsedVersionRange() {
+    return parsedVersionRange;
+  }
+
   public String getKey() {
     return key;
   }
@@ -69,7 +108,28 @@ public class AllowedDependency {
     return license;
   }
 
-  public void setLicense(License license) {
-    this.license = license;
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof AllowedDependency)) {
+      return false;
+    }
+    AllowedDependency other = (AllowedDependency) obj;
+    return ObjectUtils.equals(key, other.key) && ObjectUtils.equals(versionRange, other.versionRange)
+      && ObjectUtils.equals(licenseId, other.licenseId) && ObjectUtils.equals(license, other.license);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = ObjectUtils.hashCode(key);
+    result = 31 * result + ObjectUtils.hashCode(versionRange);
+    return 31 * result + ObjectUtils.hashCode(licenseId);
+  }
+
+  @Override
+  public String toString() {
+    return key + " " + versionRange + " (" + licenseId + ")";
   }
 }
@@ -0,0 +1,236 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Compiled lookup structure for a list of allowed dependencies. The key of an allowed dependency is either
+ * <ul>
+ * <li>a prefix of the dependency keys it allows, e.g. <code>org.springframework:spring-</code> (a complete key like
+ * <code>org.springframework:spring-core</code> is just the longest prefix of itself), or</li>
+ * <li>a pattern with the wildcards <code>*</code> (any characters) and <code>?</code> (one character) on the groupId
+ * and the artifactId, e.g. <code>org.apache.*:commons-*</code>. Wildcards do not match the <code>:</code> between
+ * groupId and artifactId, and a pattern without <code>:</code> matches the groupId of any artifact. Patterns have to
+ * match the whole key.</li>
+ * </ul>
+ * If several allowed dependencies match, the most specific one wins, independent of the order of the list:
+ * <ol>
+ * <li>the one with the most literal (non-wildcard) characters, so an exact key wins over every prefix and pattern and
+ * a longer prefix wins over a shorter one,</li>
+ * <li>a prefix over a pattern,</li>
+ * <li>the pattern with less wildcards,</li>
+ * <li>the one listed first.</li>
+ * </ol>
+ * Prefixes are stored in a character trie and patterns at the trie node of their literal start, so a dependency key
+ * is matched in O(key length) plus the patterns sharing a start with the key, instead of scanning the whole list.
+ */
+public final class AllowedDependencyIndex {
+
+  /**
+   * Version of the matching semantics, part of the policy hash so verdicts cached with other semantics are not
+   * reused.
+   */
+  static final String MATCHING_VERSION = "3";
+
+  private final Node root = new Node();
+  private final int size;
+
+  /**
+   * Builds the index.
+   *
+   * @param allowedDependencies the allowed dependencies, the position only decides between equally specific ones
+   */
+  public AllowedDependencyIndex(List<AllowedDependency> allowedDependencies) {
+    int position = 0;
+    for (AllowedDependency allowedDependency : allowedDependencies) {
+      if (allowedDependency.getKey() != null) {
+        insert(new Entry(allowedDependency, position));
+      }
+      position++;
+    }
+    this.size = position;
+  }
+
+  private void insert(Entry entry) {
+    String key = entry.allowedDependency.getKey();
+    int literalStart = entry.pattern != null ? wildcardIndex(key) : key.length();
+    Node node = root;
+    for (int i = 0; i < literalStart; i++) {
+      Character c = key.charAt(i);
+      Node child = node.children.get(c);
+      if (child == null) {
+        child = new Node();
+        node.children.put(c, child);
+      }
+      node = child;
+    }
+    if (entry.pattern != null) {
+      if (node.patterns == null) {
+        node.patterns = new ArrayList<Entry>(1);
+      }
+      node.patterns.add(entry);
+    }
+    else if (node.prefix == null) {
+      // an earlier entry with the same key keeps precedence
+      node.prefix = entry;
+    }
+  }
+
+  /**
+   * Searches the most specific allowed dependency for a dependency key.
+   *
+   * @param dependencyKey the key of the currently handled dependency
+   * @return the matching allowed dependency or null if the dependency is not listed
+   */
+  public AllowedDependency find(String dependencyKey) {
+    Node node = root;
+    Entry match = matchAt(root, dependencyKey, null);
+    for (int i = 0; i < dependencyKey.length(); i++) {
+      node = node.children.get(dependencyKey.charAt(i));
+      if (node == null) {
+        break;
+      }
+      match = matchAt(node, dependencyKey, match);
+    }
+    return match != null ? match.allowedDependency : null;
+  }
+
+  private static Entry matchAt(Node node, String dependencyKey, Entry match) {
+    Entry best = match;
+    if (node.prefix != null && node.prefix.isMoreSpecificThan(best)) {
+      best = node.prefix;
+    }
+    if (node.patterns != null) {
+      for (Entry pattern : node.patterns) {
+        if (pattern.isMoreSpecificThan(best) && pattern.matches(dependencyKey)) {
+          best = pattern;
+        }
+      }
+    }
+    return best;
+  }
+
+  /**
+   * @param key the key of an allowed dependency
+   * @return true if the key is a pattern with wildcards, false if it is a prefix
+   */
+  static boolean isPattern(String key) {
+    return wildcardIndex(key) < key.length();
+  }
+
+  private static int wildcardIndex(String key) {
+    for (int i = 0; i < key.length(); i++) {
+      char c = key.charAt(i);
+      if (c == '*' || c == '?') {
+        return i;
+      }
+    }
+    return key.length();
+  }
+
+  private static Pattern compile(String key) {
+    StringBuilder regex = new StringBuilder();
+    int literalStart = 0;
+    for (int i = 0; i < key.length(); i++) {
+      char c = key.charAt(i);
+      if (c == '*' || c == '?') {
+        if (i > literalStart) {
+          regex.append(Pattern.quote(key.substring(literalStart, i)));
+        }
+        regex.append(c == '*' ? "[^:]*" : "[^:]");
+        literalStart = i + 1;
+      }
+    }
+    if (literalStart < key.length()) {
+      regex.append(Pattern.quote(key.substring(literalStart)));
+    }
+    if (key.indexOf(':') < 0) {
+      // a groupId pattern allows every artifact of the group
+      regex.append("(:.*)?");
+    }
+    return Pattern.compile(regex.toString());
+  }
+
+  /**
+   * @return the number of allowed dependencies this index was built from
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * An allowed dependency with its position in the list, ordered by specificity.
+   */
+  static final class Entry {
+    private final AllowedDependency allowedDependency;
+    private final int position;
+    private final Pattern pattern;
+    private final int literals;
+    private final int wildcards;
+
+    Entry(AllowedDependency allowedDependency, int position) {
+      String key = allowedDependency.getKey();
+      this.allowedDependency = allowedDependency;
+      this.position = position;
+      this.pattern = isPattern(key) ? compile(key) : null;
+      int count = 0;
+      for (int i = 0; i < key.length(); i++) {
+        if (key.charAt(i) == '*' || key.charAt(i) == '?') {
+          count++;
+        }
+      }
+      this.wildcards = count;
+      this.literals = key.length() - count;
+    }
+
+    AllowedDependency getAllowedDependency() {
+      return allowedDependency;
+    }
+
+    boolean matches(String dependencyKey) {
+      return pattern != null ? pattern.matcher(dependencyKey).matches() : dependencyKey.startsWith(allowedDependency.getKey());
+    }
+
+    boolean isMoreSpecificThan(Entry other) {
+      if (other == null) {
+        return true;
+      }
+      if (literals != other.literals) {
+        return literals > other.literals;
+      }
+      if ((pattern == null) != (other.pattern == null)) {
+        return pattern == null;
+      }
+      if (wildcards != other.wildcards) {
+        return wildcards < other.wildcards;
+      }
+      return position < other.position;
+    }
+  }
+
+  private static final class Node {
+    private final Map<Character, Node> children = new HashMap<Character, Node>(4);
+    private Entry prefix;
+    private List<Entry> patterns;
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang.StringUtils;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * The global allowed dependencies and licenses compiled by the server when they are saved, so the analyses do not
+ * have to parse and validate the XML.
+ * <p>
+ * The artifact uses the format of the {@link MeasureEncoder}: a header entry with the artifact version and the hash
+ * of the XML it was compiled from, the licenses sorted by id and the allowed dependencies in order of precedence
+ * (without the entries hidden by an earlier entry with the same key).
+ */
+public final class CompiledPolicy {
+
+  static final String ARTIFACT_VERSION = "1";
+  private static final String HEADER = "policy";
+  private static final String LICENSE = "L";
+  private static final String DEPENDENCY = "D";
+  private static final int LICENSE_FIELDS = 6;
+  private static final int DEPENDENCY_FIELDS = 4;
+
+  private final String sourceHash;
+  private final List<AllowedDependency> dependencies;
+  private final Map<String, License> licenses;
+
+  private CompiledPolicy(String sourceHash, List<AllowedDependency> dependencies, Map<String, License> licenses) {
+    this.sourceHash = sourceHash;
+    this.dependencies = dependencies;
+    this.licenses = licenses;
+  }
+
+  /**
+   * @param globalXml the global allowed dependencies
+   * @param licenseXml the licenses
+   * @return the hash identifying the XML the artifact is compiled from
+   */
+  public static String sourceHash(String globalXml, String licenseXml) {
+    return hash(hash(globalXml) + hash(licenseXml));
+  }
+
+  private static String hash(String value) {
+    return DigestUtils.sha1Hex(StringUtils.defaultString(value));
+  }
+
+  /**
+   * Compiles the global allowed dependencies and licenses.
+   *
+   * @param globalXml the global allowed dependencies
+   * @param licenseXml the licenses
+   * @return the artifact
+   */
+  public static String compile(String globalXml, String licenseXml) {
+    return compile(sourceHash(globalXml, licenseXml), AllowedDependencies.loadFromXml(globalXml), Licenses.loadFromXml(licenseXml));
+  }
+
+  /**
+   * Compiles the global allowed dependencies and licenses which have already been parsed from the XML.
+   *
+   * @param sourceHash the hash of the XML, see {@link #sourceHash(String, String)}
+   * @param dependencies the allowed dependencies of the XML
+   * @param licenses the licenses of the XML
+   * @return the artifact
+   */
+  public static String compile(String sourceHash, List<AllowedDependency> dependencies, Collection<License> licenses) {
+    List<String> entries = new ArrayList<String>();
+    entries.add(MeasureEncoder.entry(HEADER, ARTIFACT_VERSION, sourceHash));
+
+    // a later license replaces an earlier one with the same id, as in the analysis
+    Map<String, License> sortedLicenses = new TreeMap<String, License>();
+    for (License license : licenses) {
+      if (license.getId() != null) {
+        sortedLicenses.put(license.getId(), license);
+      }
+    }
+    for (License license : sortedLicenses.values()) {
+      entries.add(MeasureEncoder.entry(LICENSE, license.getId(), license.getTitle(), license.getUrl(),
+          license.getSourceType() != null ? license.getSourceType().name() : "", String.valueOf(license.isCommercial())));
+    }
+
+    Set<String> keys = new HashSet<String>();
+    for (AllowedDependency dependency : dependencies) {
+      if (dependency.getKey() != null && keys.add(dependency.getKey())) {
+        entries.add(MeasureEncoder.entry(DEPENDENCY, dependency.getKey(), dependency.getVersionRange(), dependency.getLicenseId()));
+      }
+    }
+    return MeasureEncoder.encode(entries);
+  }
+
+  /**
+   * Reads a compiled artifact.
+   *
+   * @param artifact the artifact
+   * @return the allowed dependencies and licenses
+   * @throws IllegalArgumentException if the artifact is invalid or has an unknown version
+   */
+  public static CompiledPolicy decode(String artifact) {
+    List<String> entries = MeasureDecoder.entries(artifact);
+    List<String> header = entries.isEmpty() ? null : MeasureDecoder.fields(entries.get(0));
+    if (header == null || header.size() != 3 || !HEADER.equals(header.get(0)) || !ARTIFACT_VERSION.equals(header.get(1))) {
+      throw new IllegalArgumentException("Unknown compiled policy version");
+    }
+
+    Map<String, License> licenses = new HashMap<String, License>();
+    ImmutableList.Builder<AllowedDependency> dependencies = ImmutableList.builder();
+    for (String entry : entries.subList(1, entries.size())) {
+      List<String> fields = MeasureDecoder.fields(entry);
+      if (LICENSE.equals(fields.get(0))) {
+        checkFields(fields, LICENSE_FIELDS);
+        String sourceType = fields.get(4);
+        licenses.put(fields.get(1), new License(fields.get(1), StringUtils.defaultIfEmpty(fields.get(2), null), null,
+            StringUtils.defaultIfEmpty(fields.get(3), null), sourceType.length() > 0 ? SourceType.valueOf(sourceType) : null,
+            Boolean.parseBoolean(fields.get(5))));
+      }
+      else if (DEPENDENCY.equals(fields.get(0))) {
+        checkFields(fields, DEPENDENCY_FIELDS);
+        String licenseId = StringUtils.defaultIfEmpty(fields.get(3), null);
+        dependencies.add(new AllowedDependency(fields.get(1), StringUtils.defaultIfEmpty(fields.get(2), null), licenseId,
+            licenseId != null ? licenses.get(licenseId) : null));
+      }
+      else {
+        throw new IllegalArgumentException("Unknown compiled policy entry " + fields.get(0));
+      }
+    }
+    return new CompiledPolicy(header.get(2), dependencies.build(), ImmutableMap.copyOf(licenses));
+  }
+
+  private static void checkFields(List<String> fields, int count) {
+    if (fields.size() != count) {
+      throw new IllegalArgumentException("Invalid compiled policy entry " + fields.get(0) + " with " + fields.size() + " fields");
+    }
+  }
+
+  /**
+   * @return the hash identifying the XML the artifact was compiled from
+   */
+  public String getSourceHash() {
+    return sourceHash;
+  }
+
+  /**
+   * @return the allowed dependencies with resolved licenses, in order of precedence
+   */
+  public List<AllowedDependency> getDependencies() {
+    return dependencies;
+  }
+
+  /**
+   * @return the licenses by id
+   */
+  public Map<String, License> getLicenses() {
+    return licenses;
+  }
+}
@@ -0,0 +1,421 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import static com.google.common.collect.Lists.newArrayList;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.Decorator;
+import org.sonar.api.batch.DecoratorContext;
+import org.sonar.api.component.ResourcePerspectives;
+import org.sonar.api.config.Settings;
+import org.sonar.api.issue.Issuable;
+import org.sonar.api.measures.Measure;
+import org.sonar.api.measures.Metric;
+import org.sonar.api.resources.Library;
+import org.sonar.api.resources.Project;
+import org.sonar.api.resources.Resource;
+import org.sonar.api.resources.ResourceUtils;
+import org.sonar.plugins.dependencycheck.DependencyCheckStatistics.Phase;
+
+/**
+ * This class creates Issues and Measures for the analyzed project.
+ */
+public final class DependencyCheckDecorator implements Decorator {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DependencyCheckDecorator.class);
+  private static final int MIN_CHUNK_SIZE = 128;
+  private final Settings settings;
+  private final ResourcePerspectives perspectives;
+  private final DependencyPolicyCache policyCache;
+  private final DependencyGraphCache graphCache;
+  private final DependencyCheckResults results;
+  private final DependencyCheckExecutor executor;
+  private final VerdictCache verdictCache;
+  private final ModuleResultCache moduleResults;
+
+  /**
+   * Dependency Injection of settings and perspectives
+   *
+   * @param settings - settings for the plugin (contains the properties)
+   * @param perspectives - needed for creating issues
+   * @param policyCache - the allowed dependencies and licenses, shared by all modules
+   * @param graphCache - the dependency graph, shared by all modules
+   * @param results - the results of the child modules
+   * @param executor - runs the checks in parallel
+   * @param verdictCache - the verdicts of previous analyses
+   * @param moduleResults - the results of the modules in the previous analysis
+   */
+  public DependencyCheckDecorator(Settings settings, ResourcePerspectives perspectives, DependencyPolicyCache policyCache,
+      DependencyGraphCache graphCache, DependencyCheckResults results, DependencyCheckExecutor executor, VerdictCache verdictCache,
+      ModuleResultCache moduleResults) {
+    this.settings = settings;
+    this.perspectives = perspectives;
+    this.policyCache = policyCache;
+    this.graphCache = graphCache;
+    this.results = results;
+    this.executor = executor;
+    this.verdictCache = verdictCache;
+    this.moduleResults = moduleResults;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public boolean shouldExecuteOnProject(Project project) {
+    return true;
+  }
+
+  /**
+   * Collects the violated rules and adds the encoded measure entry of the used dependency
+   *
+   * @param dependency the currently handled dependency
+   * @param scope the scope of the dependency
+   * @param allDependencies - set of checked dependencies
+   * @param policy - the allowed dependencies and licenses
+   * @param namespace - the namespace of the verdicts in the verdict cache, null if the cache is disabled
+   * @param issues - the violations of the module
+   * @param statistics - the timings and counters of the module
+   */
+  private void checkDependency(Resource dependency, DependencyScope scope, Set<String> allDependencies,
+      DependencyPolicy policy, String namespace, DependencyIssues issues, DependencyCheckStatistics statistics) {
+
+    final String dependencyKey = dependency.getKey();
+    final String dependencyVersion = ((Library) dependency).getVersion();
+    final String scopeName = scope != null ? scope.getName() : "";
+
+    LOGGER.debug("Checking dependency: {}", dependencyKey);
+
+    DependencyVerdict verdict = namespace != null ? verdictCache.get(namespace, dependencyKey, dependencyVersion) : null;
+    if (verdict != null) {
+      statistics.addCacheHit();
+    }
+    else {
+      verdict = DependencyVerdict.evaluate(policy, dependencyKey, dependencyVersion, statistics);
+      if (namespace != null) {
+        verdictCache.put(namespace, dependencyKey, dependencyVersion, verdict);
+      }
+    }
+
+    allDependencies.add(MeasureEncoder.dependencyEntry(dependencyKey, dependencyVersion, scopeName, verdict.getLicenseId(), verdict.getStatus(),
+        verdict.getAllowedRange()));
+    if (DependencyVerdict.UNLISTED.equals(verdict.getStatus())) {
+      issues.addUnlisted(dependencyKey);
+    }
+    else if (DependencyVerdict.WRONG_VERSION.equals(verdict.getStatus())) {
+      issues.addWrongVersion(dependencyKey, dependencyVersion, verdict.getAllowedRange());
+    }
+  }
+
+  /**
+   * Adds the issues of the entries of a previous analysis.
+   */
+  private static void reissue(List<String> entries, DependencyIssues issues) {
+    for (String entry : entries) {
+      List<String> fields = MeasureDecoder.fields(entry);
+      String status = fields.get(MeasureEncoder.DEPENDENCY_STATUS);
+      if (DependencyVerdict.UNLISTED.equals(status)) {
+        issues.addUnlisted(fields.get(MeasureEncoder.DEPENDENCY_KEY));
+      }
+      else if (DependencyVerdict.WRONG_VERSION.equals(status)) {
+        issues.addWrongVersion(fields.get(MeasureEncoder.DEPENDENCY_KEY), fields.get(MeasureEncoder.DEPENDENCY_VERSION),
+            fields.get(MeasureEncoder.DEPENDENCY_ALLOWED_RANGE));
+      }
+    }
+  }
+
+  /**
+   * Checks the dependencies, with a parallelism above 1 in chunks on the executor. The entries are sorted and the
+   * issues are sorted when saved, so the result does not depend on the order the chunks are evaluated in.
+   * <p>
+   * The chunks are timed as a whole: the wall-clock time of the parallel section is recorded as matching time (incl.
+   * the version checks), the time of the threads is not added up.
+   */
+  private void checkDependencies(List<Map.Entry<Resource, DependencyScope>> dependencies, Set<String> allDependencies,
+      final DependencyPolicy policy, final String namespace, DependencyIssues issues, DependencyCheckStatistics statistics) {
+    int parallelism = settings.getInt(DependencyCheckMetrics.PARALLELISM_PROPERTY);
+    int chunks = Math.max(1, Math.min(parallelism, dependencies.size() / MIN_CHUNK_SIZE));
+    if (chunks == 1) {
+      for (Map.Entry<Resource, DependencyScope> dependency : dependencies) {
+        checkDependency(dependency.getKey(), dependency.getValue(), allDependencies, policy, namespace, issues, statistics);
+      }
+      return;
+    }
+
+    final int limit = settings.getInt(DependencyCheckMetrics.ISSUE_LIMIT_PROPERTY);
+    List<Callable<Evaluation>> tasks = newArrayList();
+    int chunkSize = (dependencies.size() + chunks - 1) / chunks;
+    for (int start = 0; start < dependencies.size(); start += chunkSize) {
+      final List<Map.Entry<Resource, DependencyScope>> chunk = dependencies.subList(start, Math.min(start + chunkSize, dependencies.size()));
+      tasks.add(new Callable<Evaluation>() {
+        public Evaluation call() {
+          Evaluation evaluation = new Evaluation(chunk.size(), limit);
+          for (Map.Entry<Resource, DependencyScope> dependency : chunk) {
+            checkDependency(dependency.getKey(), dependency.getValue(), evaluation.entries, policy, namespace, evaluation.issues,
+                evaluation.statistics);
+          }
+          return evaluation;
+        }
+      });
+    }
+    long start = DependencyCheckStatistics.start();
+    List<Evaluation> evaluations = executor.invokeAll(tasks, parallelism);
+    statistics.stop(Phase.MATCHING, start);
+    for (Evaluation evaluation : evaluations) {
+      allDependencies.addAll(evaluation.entries);
+      issues.addAll(evaluation.issues);
+      statistics.addCacheHits(evaluation.statistics.getCacheHits());
+    }
+  }
+
+  /**
+   * The entries, violations and cache hits of a chunk of dependencies.
+   */
+  private static final class Evaluation {
+    private final Set<String> entries;
+    private final DependencyIssues issues;
+    private final DependencyCheckStatistics statistics = new DependencyCheckStatistics();
+
+    private Evaluation(int size, int limit) {
+      entries = new HashSet<String>(size * 4 / 3 + 1);
+      issues = new DependencyIssues(limit);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void decorate(Resource resource, DecoratorContext context) {
+    if (!(ResourceUtils.isProject(resource) || ResourceUtils.isModuleProject(resource))) {
+      return;
+    }
+
+    SortedSet<String> dependencyAnalysisResult = new TreeSet<String>(MeasureDecoder.ENTRY_ORDER);
+
+    // resource has to be a project here
+    Project project = (Project) resource;
+
+    LOGGER.debug("Dependency check for project: {}", project);
+
+    DependencyCheckStatistics statistics = new DependencyCheckStatistics();
+    long start = DependencyCheckStatistics.start();
+    DependencyPolicy policy = policyCache.getPolicy(settings);
+    statistics.stop(Phase.POLICY, start);
+
+    LOGGER.debug("Got dependencies: {}", context.getDependencies());
+    start = DependencyCheckStatistics.start();
+    DependencyGraph graph = graphCache.getGraph(context.getDependencies(), ScopeFilter.fromSettings(settings));
+    statistics.setEdges(graph.getDependencyCount());
+
+    DependencyIssues issues = new DependencyIssues(settings.getInt(DependencyCheckMetrics.ISSUE_LIMIT_PROPERTY));
+    boolean verdictsCached = verdictCache.open(settings.getInt(DependencyCheckMetrics.VERDICT_CACHE_PROPERTY));
+    boolean incremental = settings.getBoolean(DependencyCheckMetrics.INCREMENTAL_PROPERTY);
+    String namespace = verdictsCached || incremental ? policyCache.getNamespace(policy, settings) : null;
+    String fingerprint = incremental ? DigestUtils.sha1Hex(namespace + graph.fingerprint(resource.getKey())) : null;
+    List<String> previous = fingerprint != null ? moduleResults.get(resource.getKey(), fingerprint) : null;
+    statistics.stop(Phase.GRAPH, start);
+    if (previous != null) {
+      LOGGER.debug("Dependencies unchanged, reusing the previous result of {}", project);
+      statistics.addCacheHit();
+      dependencyAnalysisResult.addAll(previous);
+      reissue(previous, issues);
+    }
+    else {
+      start = DependencyCheckStatistics.start();
+      List<Map.Entry<Resource, DependencyScope>> dependencies = newArrayList(graph.findScopedDependencies(resource.getKey()).entrySet());
+      statistics.stop(Phase.CLOSURE, start);
+      checkDependencies(dependencies, dependencyAnalysisResult, policy, verdictsCached ? namespace : null, issues, statistics);
+      if (fingerprint != null) {
+        moduleResults.put(resource.getKey(), fingerprint, newArrayList(dependencyAnalysisResult));
+      }
+    }
+    statistics.setLibraries(dependencyAnalysisResult.size());
+    statistics.setIssues(issues.size());
+
+    start = DependencyCheckStatistics.start();
+    if (!issues.isEmpty()) {
+      Issuable issuable = perspectives.as(Issuable.class, resource);
+      if (issuable != null) {
+        issues.save(issuable);
+      }
+    }
+
+    saveProjectMeasures(project, context, dependencyAnalysisResult, policy);
+    statistics.stop(Phase.SAVE, start);
+
+    LOGGER.info("Dependency check of {}: {}", project.getKey(), statistics);
+    if (settings.getBoolean(DependencyCheckMetrics.STATISTICS_PROPERTY)) {
+      context.saveMeasure(new Measure(DependencyCheckMetrics.ANALYSIS_TIME, (double) statistics.getTotalMillis()));
+      context.saveMeasure(new Measure(DependencyCheckMetrics.CACHE_HITS, (double) statistics.getCacheHits()));
+    }
+  }
+
+  /**
+   * Merges the results of the child modules and saves the dependencies and the licenses used by them to project
+   * measures for display in UI. The result is kept for the parent module.
+   *
+   * @param project the current project
+   * @param context .
+   * @param dependencyAnalysisResult .
+   * @param policy the allowed dependencies and licenses
+   */
+  private void saveProjectMeasures(Project project, DecoratorContext context, SortedSet<String> dependencyAnalysisResult,
+      DependencyPolicy policy) {
+
+    List<List<String>> dependencyRuns = newArrayList();
+    dependencyRuns.add(newArrayList(dependencyAnalysisResult));
+
+    for (DecoratorContext child : context.getChildren()) {
+      Resource childResource = child.getResource();
+      if (!(ResourceUtils.isProject(childResource) || ResourceUtils.isModuleProject(childResource))) {
+        continue;
+      }
+      DependencyCheckResults.Result childResult = results.take(childResource.getKey());
+      if (childResult != null) {
+        dependencyRuns.add(childResult.getDependencies());
+      }
+      else {
+        // not decorated in this analysis, fall back to the saved measure
+        dependencyRuns.add(decodeSorted(child.getMeasure(DependencyCheckMetrics.DEPENDENCY)));
+      }
+    }
+
+    List<String> dependencies = SortedRuns.merge(dependencyRuns, MeasureDecoder.ENTRY_ORDER);
+
+    context.saveMeasure(new Measure(DependencyCheckMetrics.DEPENDENCY, MeasureEncoder.encode(dependencies)));
+    context.saveMeasure(new Measure(DependencyCheckMetrics.LICENSE, MeasureEncoder.encode(licenseEntries(dependencies, policy))));
+    for (Map.Entry<Metric, Integer> count : counts(dependencies, policy).entrySet()) {
+      context.saveMeasure(new Measure(count.getKey(), count.getValue().doubleValue()));
+    }
+
+    if (project.getParent() != null) {
+      results.put(project.getKey(), dependencies);
+    }
+  }
+
+  /**
+   * Counts the libraries per license of the dependency entries.
+   *
+   * @param dependencies the dependency entries
+   * @param policy the allowed dependencies and licenses
+   * @return the license entries, sorted by license id
+   */
+  static List<String> licenseEntries(List<String> dependencies, DependencyPolicy policy) {
+    Map<String, Set<String>> librariesByLicense = new TreeMap<String, Set<String>>();
+    for (String entry : dependencies) {
+      List<String> fields = MeasureDecoder.fields(entry);
+      String licenseId = fields.get(MeasureEncoder.DEPENDENCY_LICENSE_ID);
+      if (licenseId.length() == 0) {
+        continue;
+      }
+      Set<String> libraries = librariesByLicense.get(licenseId);
+      if (libraries == null) {
+        libraries = new HashSet<String>();
+        librariesByLicense.put(licenseId, libraries);
+      }
+      libraries.add(fields.get(MeasureEncoder.DEPENDENCY_KEY));
+    }
+
+    List<String> licenses = newArrayList();
+    for (Map.Entry<String, Set<String>> libraries : librariesByLicense.entrySet()) {
+      License license = policy.getLicense(libraries.getKey());
+      licenses.add(MeasureEncoder.licenseEntry(libraries.getKey(), libraries.getValue().size(),
+          license != null ? license.getSourceType() : null, license != null && license.isCommercial()));
+    }
+    return licenses;
+  }
+
+  /**
+   * Counts the library versions per status and the libraries per license of the dependency entries. The entries of
+   * a parent are the union of its modules, so libraries used by several modules are counted once.
+   *
+   * @param dependencies the dependency entries
+   * @param policy the allowed dependencies and licenses
+   * @return the values of the count metrics
+   */
+  static Map<Metric, Integer> counts(List<String> dependencies, DependencyPolicy policy) {
+    Map<String, Set<String>> byStatus = new HashMap<String, Set<String>>();
+    byStatus.put(DependencyVerdict.UNLISTED, new HashSet<String>());
+    byStatus.put(DependencyVerdict.WRONG_VERSION, new HashSet<String>());
+    byStatus.put(DependencyVerdict.OK, new HashSet<String>());
+    Set<String> licenses = new HashSet<String>();
+    Set<String> copyleft = new HashSet<String>();
+    Set<String> commercial = new HashSet<String>();
+
+    for (String entry : dependencies) {
+      List<String> fields = MeasureDecoder.fields(entry);
+      String key = fields.get(MeasureEncoder.DEPENDENCY_KEY);
+      Set<String> libraries = byStatus.get(fields.get(MeasureEncoder.DEPENDENCY_STATUS));
+      if (libraries != null) {
+        libraries.add(key + '@' + fields.get(MeasureEncoder.DEPENDENCY_VERSION));
+      }
+      String licenseId = fields.get(MeasureEncoder.DEPENDENCY_LICENSE_ID);
+      if (licenseId.length() == 0) {
+        continue;
+      }
+      licenses.add(licenseId);
+      License license = policy.getLicense(licenseId);
+      if (license != null && license.getSourceType() == SourceType.OPENSOURCE_COPYLEFT) {
+        copyleft.add(key);
+      }
+      if (license != null && license.isCommercial()) {
+        commercial.add(key);
+      }
+    }
+
+    Map<Metric, Integer> counts = new LinkedHashMap<Metric, Integer>();
+    counts.put(DependencyCheckMetrics.UNLISTED_COUNT, byStatus.get(DependencyVerdict.UNLISTED).size());
+    counts.put(DependencyCheckMetrics.WRONG_VERSION_COUNT, byStatus.get(DependencyVerdict.WRONG_VERSION).size());
+    counts.put(DependencyCheckMetrics.OK_COUNT, byStatus.get(DependencyVerdict.OK).size());
+    counts.put(DependencyCheckMetrics.LICENSE_COUNT, licenses.size());
+    counts.put(DependencyCheckMetrics.COPYLEFT_COUNT, copyleft.size());
+    counts.put(DependencyCheckMetrics.COMMERCIAL_COUNT, commercial.size());
+    return counts;
+  }
+
+  private static List<String> decodeSorted(Measure measure) {
+    if (measure == null || measure.getData() == null) {
+      return Collections.emptyList();
+    }
+    String data = measure.getData();
+    List<String> entries;
+    if (MeasureDecoder.isLegacy(data)) {
+      entries = LegacyMeasureDecoder.toDependencyEntries(data);
+    }
+    else {
+      entries = MeasureDecoder.entries(data);
+    }
+    SortedSet<String> sorted = new TreeSet<String>(MeasureDecoder.ENTRY_ORDER);
+    sorted.addAll(entries);
+    return newArrayList(sorted);
+  }
+
+}
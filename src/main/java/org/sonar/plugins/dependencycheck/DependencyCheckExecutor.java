@@ -0,0 +1,115 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.picocontainer.Startable;
+import org.sonar.api.BatchExtension;
+import org.sonar.api.batch.InstantiationStrategy;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Runs the evaluation of the dependencies of a module in parallel, if enabled by the parallelism property. The
+ * threads are shared by all modules of the analysis.
+ */
+@InstantiationStrategy(InstantiationStrategy.PER_BATCH)
+public class DependencyCheckExecutor implements BatchExtension, Startable {
+
+  private ExecutorService executor;
+  private int threads;
+
+  /**
+   * Runs the tasks and returns their results in the order of the tasks. With a parallelism of 1 or less, or only one
+   * task, the tasks run in the calling thread.
+   *
+   * @param tasks the tasks
+   * @param parallelism the number of threads to use
+   * @param <T> the result type
+   * @return the results of the tasks
+   * @throws IllegalStateException if a task fails
+   */
+  public <T> List<T> invokeAll(List<Callable<T>> tasks, int parallelism) {
+    List<T> results = new ArrayList<T>(tasks.size());
+    if (parallelism <= 1 || tasks.size() <= 1) {
+      for (Callable<T> task : tasks) {
+        results.add(call(task));
+      }
+      return results;
+    }
+    try {
+      for (Future<T> future : executor(parallelism).invokeAll(tasks)) {
+        results.add(future.get());
+      }
+      return results;
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while checking dependencies", e);
+    }
+    catch (ExecutionException e) {
+      throw new IllegalStateException("Failure checking dependencies", e.getCause());
+    }
+  }
+
+  private static <T> T call(Callable<T> task) {
+    try {
+      return task.call();
+    }
+    catch (Exception e) {
+      // wrapped like a failure of a parallel task
+      throw new IllegalStateException("Failure checking dependencies", e);
+    }
+  }
+
+  private synchronized ExecutorService executor(int parallelism) {
+    if (executor == null || threads < parallelism) {
+      if (executor != null) {
+        executor.shutdown();
+      }
+      executor = Executors.newFixedThreadPool(parallelism,
+          new ThreadFactoryBuilder().setNameFormat("dependencycheck-%d").setDaemon(true).build());
+      threads = parallelism;
+    }
+    return executor;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void start() {
+    // threads are started on first use
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public synchronized void stop() {
+    if (executor != null) {
+      executor.shutdown();
+      executor = null;
+    }
+  }
+}
@@ -17,6 +17,7 @@
  */
 package org.sonar.plugins.dependencycheck;
 
+import static java.lang.Boolean.FALSE;
 import static java.lang.Boolean.TRUE;
 
 import java.util.Arrays;
@@ -36,6 +37,14 @@ public final class DependencyCheckMetrics implements Metrics {
   public static final String DEPENDENCY_CHECK_LICENSE_KEY = "dependencycheck.license";
   public static final String DEPENDENCY_CHECK_UNLISTED_KEY = "dependencycheck.unlisted";
   public static final String DEPENDENCY_CHECK_WRONG_VERSION_KEY = "dependencycheck.wrongversion";
+  public static final String DEPENDENCY_CHECK_UNLISTED_COUNT_KEY = "dependencycheck.unlisted_dependencies";
+  public static final String DEPENDENCY_CHECK_WRONG_VERSION_COUNT_KEY = "dependencycheck.wrong_version_dependencies";
+  public static final String DEPENDENCY_CHECK_OK_COUNT_KEY = "dependencycheck.ok_dependencies";
+  public static final String DEPENDENCY_CHECK_LICENSE_COUNT_KEY = "dependencycheck.licenses";
+  public static final String DEPENDENCY_CHECK_COPYLEFT_COUNT_KEY = "dependencycheck.copyleft_libraries";
+  public static final String DEPENDENCY_CHECK_COMMERCIAL_COUNT_KEY = "dependencycheck.commercial_libraries";
+  public static final String DEPENDENCY_CHECK_ANALYSIS_TIME_KEY = "dependencycheck.analysis_time_ms";
+  public static final String DEPENDENCY_CHECK_CACHE_HITS_KEY = "dependencycheck.cache_hits";
 
   public static final String LIBRARY_GLOBAL_PROPERTY = "sonar.dependencycheck.lib.global";
   public static final String LIBRARY_PROJECT_PROPERTY = "sonar.dependencycheck.lib.project";
@@ -44,6 +53,7 @@ public final class DependencyCheckMetrics implements Metrics {
   public static final String LIBRARY_LICENSE_PROPERTY = "sonar.dependencycheck.lib.license";
 
   public static final String LICENSE_PROPERTY = "sonar.dependencycheck.license";
+  public static final String COMPILED_POLICY_PROPERTY = "sonar.dependencycheck.policy.compiled";
   public static final String LICENSE_ID_PROPERTY = "sonar.dependencycheck.license.id";
   public static final String LICENSE_TITLE_PROPERTY = "sonar.dependencycheck.license.title";
   public static final String LICENSE_DESCRIPTION_PROPERTY = "sonar.dependencycheck.license.description";
@@ -55,6 +65,14 @@ public final class DependencyCheckMetrics implements Metrics {
   public static final String SCOPE_PROVIDED_PROPERTY = "dependencycheck.scope.provided";
   public static final String SCOPE_COMPILE_PROPERTY = "dependencycheck.scope.compile";
   public static final String SCOPE_RUNTIME_PROPERTY = "dependencycheck.scope.runtime";
+  public static final String SCOPE_ADDITIONAL_PROPERTY = "dependencycheck.scope.additional";
+
+  public static final String ISSUE_LIMIT_PROPERTY = "dependencycheck.issue.limit";
+
+  public static final String PARALLELISM_PROPERTY = "sonar.dependencycheck.parallelism";
+  public static final String VERDICT_CACHE_PROPERTY = "sonar.dependencycheck.verdictcache.size";
+  public static final String INCREMENTAL_PROPERTY = "sonar.dependencycheck.incremental";
+  public static final String STATISTICS_PROPERTY = "sonar.dependencycheck.statistics";
 
   public static final Metric DEPENDENCY = new Metric.Builder(DEPENDENCY_CHECK_DEPENDENCY_KEY,
       "Dependency Check - Dependencies",
@@ -74,11 +92,88 @@ public final class DependencyCheckMetrics implements Metrics {
       .setDomain(CoreMetrics.DOMAIN_GENERAL)
       .create();
 
+  public static final Metric UNLISTED_COUNT = new Metric.Builder(DEPENDENCY_CHECK_UNLISTED_COUNT_KEY,
+      "Dependency Check - Unlisted Dependencies",
+      Metric.ValueType.INT)
+      .setDescription("Library versions not listed in the allowed dependencies")
+      .setDirection(Metric.DIRECTION_WORST)
+      .setQualitative(TRUE)
+      .setDomain(CoreMetrics.DOMAIN_GENERAL)
+      .setBestValue(0.0)
+      .create();
+
+  public static final Metric WRONG_VERSION_COUNT = new Metric.Builder(DEPENDENCY_CHECK_WRONG_VERSION_COUNT_KEY,
+      "Dependency Check - Wrong Version Dependencies",
+      Metric.ValueType.INT)
+      .setDescription("Library versions out of the accepted version range")
+      .setDirection(Metric.DIRECTION_WORST)
+      .setQualitative(TRUE)
+      .setDomain(CoreMetrics.DOMAIN_GENERAL)
+      .setBestValue(0.0)
+      .create();
+
+  public static final Metric OK_COUNT = new Metric.Builder(DEPENDENCY_CHECK_OK_COUNT_KEY,
+      "Dependency Check - Allowed Dependencies",
+      Metric.ValueType.INT)
+      .setDescription("Library versions in the accepted version range")
+      .setDirection(Metric.DIRECTION_NONE)
+      .setQualitative(FALSE)
+      .setDomain(CoreMetrics.DOMAIN_GENERAL)
+      .create();
+
+  public static final Metric LICENSE_COUNT = new Metric.Builder(DEPENDENCY_CHECK_LICENSE_COUNT_KEY,
+      "Dependency Check - Licenses Count",
+      Metric.ValueType.INT)
+      .setDescription("Distinct licenses of the used libraries")
+      .setDirection(Metric.DIRECTION_NONE)
+      .setQualitative(FALSE)
+      .setDomain(CoreMetrics.DOMAIN_GENERAL)
+      .create();
+
+  public static final Metric COPYLEFT_COUNT = new Metric.Builder(DEPENDENCY_CHECK_COPYLEFT_COUNT_KEY,
+      "Dependency Check - Copyleft Libraries",
+      Metric.ValueType.INT)
+      .setDescription("Libraries with an open source copyleft license")
+      .setDirection(Metric.DIRECTION_WORST)
+      .setQualitative(TRUE)
+      .setDomain(CoreMetrics.DOMAIN_GENERAL)
+      .create();
+
+  public static final Metric COMMERCIAL_COUNT = new Metric.Builder(DEPENDENCY_CHECK_COMMERCIAL_COUNT_KEY,
+      "Dependency Check - Commercial Libraries",
+      Metric.ValueType.INT)
+      .setDescription("Libraries with a commercial license")
+      .setDirection(Metric.DIRECTION_NONE)
+      .setQualitative(FALSE)
+      .setDomain(CoreMetrics.DOMAIN_GENERAL)
+      .create();
+
+  public static final Metric ANALYSIS_TIME = new Metric.Builder(DEPENDENCY_CHECK_ANALYSIS_TIME_KEY,
+      "Dependency Check - Analysis Time",
+      Metric.ValueType.MILLISEC)
+      .setDescription("Time spent checking the dependencies of the module")
+      .setDirection(Metric.DIRECTION_WORST)
+      .setQualitative(FALSE)
+      .setDomain(CoreMetrics.DOMAIN_GENERAL)
+      .setHidden(true)
+      .create();
+
+  public static final Metric CACHE_HITS = new Metric.Builder(DEPENDENCY_CHECK_CACHE_HITS_KEY,
+      "Dependency Check - Cache Hits",
+      Metric.ValueType.INT)
+      .setDescription("Verdicts and module results reused from the previous analysis")
+      .setDirection(Metric.DIRECTION_BETTER)
+      .setQualitative(FALSE)
+      .setDomain(CoreMetrics.DOMAIN_GENERAL)
+      .setHidden(true)
+      .create();
+
   /**
    * {@inheritDoc}
    */
   public List<Metric> getMetrics() {
-    return Arrays.asList(DEPENDENCY, LICENSE);
+    return Arrays.asList(DEPENDENCY, LICENSE, UNLISTED_COUNT, WRONG_VERSION_COUNT, OK_COUNT, LICENSE_COUNT, COPYLEFT_COUNT,
+        COMMERCIAL_COUNT, ANALYSIS_TIME, CACHE_HITS);
   }
 
 }
@@ -41,6 +41,8 @@ public final class DependencyCheckPlugin extends SonarPlugin {
     String subProject = "Project Dependencies";
     String subLicense = "Licenses";
     String subScope = "Scope";
+    String subIssues = "Issues";
+    String subAnalysis = "Analysis";
     ImmutableList.Builder<Object> extensions = ImmutableList.builder();
 
     List<PropertyFieldDefinition> libraryField = new ArrayList<PropertyFieldDefinition>();
@@ -68,6 +70,16 @@ public final class DependencyCheckPlugin extends SonarPlugin {
         .build()
         );
 
+    extensions.add(PropertyDefinition.builder(DependencyCheckMetrics.COMPILED_POLICY_PROPERTY)
+        .category(category)
+        .subCategory(subLicense)
+        .name("Compiled allowed dependencies and licenses")
+        .description("Written by the configuration page, read by the analyses instead of the XML")
+        .type(PropertyType.TEXT)
+        .hidden()
+        .build()
+        );
+
     extensions.add(PropertyDefinition.builder(DependencyCheckMetrics.LIBRARY_PROJECT_PROPERTY)
         .category(category)
         .subCategory(subProject)
@@ -119,9 +131,85 @@ public final class DependencyCheckPlugin extends SonarPlugin {
         .onQualifiers(Qualifiers.PROJECT)
         .build());
 
+    extensions.add(PropertyDefinition.builder(DependencyCheckMetrics.SCOPE_ADDITIONAL_PROPERTY)
+        .category(category)
+        .subCategory(subScope)
+        .name("Additional scopes")
+        .description("Further scopes whose dependencies should be checked, e.g. system or import.")
+        .type(PropertyType.STRING)
+        .multiValues(true)
+        .onQualifiers(Qualifiers.PROJECT)
+        .build());
+
+    extensions.add(PropertyDefinition.builder(DependencyCheckMetrics.ISSUE_LIMIT_PROPERTY)
+        .category(category)
+        .subCategory(subIssues)
+        .name("Issue limit")
+        .description("Maximum number of issues per rule and module, further violations are reported by one summary issue. "
+          + "0 means no limit.")
+        .type(PropertyType.INTEGER)
+        .defaultValue("0")
+        .onQualifiers(Qualifiers.PROJECT)
+        .build());
+
+    extensions.add(PropertyDefinition.builder(DependencyCheckMetrics.PARALLELISM_PROPERTY)
+        .category(category)
+        .subCategory(subAnalysis)
+        .name("Parallelism")
+        .description("Number of threads checking the dependencies of a module. Only modules with many dependencies are checked in parallel, "
+          + "1 checks all dependencies in the analysis thread.")
+        .type(PropertyType.INTEGER)
+        .defaultValue("1")
+        .onQualifiers(Qualifiers.PROJECT)
+        .build());
+
+    extensions.add(PropertyDefinition.builder(DependencyCheckMetrics.VERDICT_CACHE_PROPERTY)
+        .category(category)
+        .subCategory(subAnalysis)
+        .name("Verdict cache size")
+        .description("Maximum number of library verdicts kept in the working directory for the next analysis, e.g. 50000. "
+          + "0 disables the cache. The cache is invalidated if the allowed dependencies, licenses or dependency check settings change.")
+        .type(PropertyType.INTEGER)
+        .defaultValue("0")
+        .onQualifiers(Qualifiers.PROJECT)
+        .build());
+
+    extensions.add(PropertyDefinition.builder(DependencyCheckMetrics.INCREMENTAL_PROPERTY)
+        .category(category)
+        .subCategory(subAnalysis)
+        .name("Incremental analysis")
+        .description("Reuses the result of the previous analysis (kept in the working directory) for modules whose dependencies, "
+          + "allowed dependencies, licenses and dependency check settings have not changed.")
+        .type(PropertyType.BOOLEAN)
+        .defaultValue("false")
+        .onQualifiers(Qualifiers.PROJECT)
+        .build());
+
+    extensions.add(PropertyDefinition.builder(DependencyCheckMetrics.STATISTICS_PROPERTY)
+        .category(category)
+        .subCategory(subAnalysis)
+        .name("Save statistics")
+        .description("Saves the time spent checking the dependencies and the number of cache hits as hidden measures of each module. "
+          + "The timings of the phases are always logged.")
+        .type(PropertyType.BOOLEAN)
+        .defaultValue("false")
+        .onQualifiers(Qualifiers.PROJECT)
+        .build());
+
     extensions.add(DependencyCheckRulesDefinition.class);
     extensions.add(DependencyCheckMetrics.class);
+    extensions.add(DependencyPolicyCache.class);
+    extensions.add(DependencyGraphCache.class);
+    extensions.add(DependencyCheckResults.class);
+    extensions.add(DependencyCheckExecutor.class);
+    extensions.add(VerdictCache.class);
+    extensions.add(ModuleResultCache.class);
     extensions.add(DependencyCheckDecorator.class);
+    extensions.add(DependencyEntryIndexCache.class);
+    extensions.add(DependencyReportFormat.class);
+    extensions.add(PolicyCompiler.class);
+    extensions.add(PolicyStore.class);
+    extensions.add(PolicyFileFormat.class);
     extensions.add(DependencyCheckPage.class);
     extensions.add(DependencyCheckConfigurationPage.class);
 
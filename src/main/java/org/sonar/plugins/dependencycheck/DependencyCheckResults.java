@@ -0,0 +1,71 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.sonar.api.BatchExtension;
+import org.sonar.api.batch.InstantiationStrategy;
+
+/**
+ * Keeps the (aggregated) result of a module until its parent module is decorated, so the parent can merge the sorted
+ * entries of its children without parsing their measures again. The license entries are derived from the dependency
+ * entries, so they are not kept.
+ */
+@InstantiationStrategy(InstantiationStrategy.PER_BATCH)
+public class DependencyCheckResults implements BatchExtension {
+
+  private final Map<String, Result> results = new HashMap<String, Result>();
+
+  /**
+   * Keeps the result of a module for its parent.
+   *
+   * @param moduleKey the key of the module
+   * @param dependencies the sorted dependency entries
+   */
+  public synchronized void put(String moduleKey, List<String> dependencies) {
+    results.put(moduleKey, new Result(dependencies));
+  }
+
+  /**
+   * Removes the result of a module, every module has only one parent.
+   *
+   * @param moduleKey the key of the module
+   * @return the result or null if there is none
+   */
+  public synchronized Result take(String moduleKey) {
+    return results.remove(moduleKey);
+  }
+
+  /**
+   * Sorted, duplicate free dependency entries of a module (incl. its children).
+   */
+  public static final class Result {
+    private final List<String> dependencies;
+
+    Result(List<String> dependencies) {
+      this.dependencies = dependencies;
+    }
+
+    public List<String> getDependencies() {
+      return dependencies;
+    }
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Timings and counters of the dependency check of a module. The phases are recorded one after the other, so the total
+ * is the wall-clock time of the check (a parallel section is recorded as one phase by the thread waiting for it).
+ */
+public final class DependencyCheckStatistics {
+
+  /**
+   * The timed phases of a module.
+   */
+  public enum Phase {
+    POLICY,
+    GRAPH,
+    CLOSURE,
+    MATCHING,
+    VERSIONS,
+    SAVE;
+
+    /**
+     * @return the name of the phase in the summary
+     */
+    public String getName() {
+      return name().toLowerCase(Locale.ENGLISH);
+    }
+  }
+
+  private final AtomicLongArray nanos = new AtomicLongArray(Phase.values().length);
+  private final AtomicInteger cacheHits = new AtomicInteger();
+  private int edges;
+  private int libraries;
+  private int issues;
+
+  /**
+   * @return the start time of a phase
+   */
+  public static long start() {
+    return System.nanoTime();
+  }
+
+  /**
+   * Adds the time since start to a phase.
+   *
+   * @param phase the phase
+   * @param start the start time returned by {@link #start()}
+   */
+  public void stop(Phase phase, long start) {
+    nanos.addAndGet(phase.ordinal(), System.nanoTime() - start);
+  }
+
+  /**
+   * @param phase the phase
+   * @return the time spent in the phase in milliseconds
+   */
+  public long getMillis(Phase phase) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos.get(phase.ordinal()));
+  }
+
+  /**
+   * @return the time spent in all phases in milliseconds
+   */
+  public long getTotalMillis() {
+    long total = 0;
+    for (Phase phase : Phase.values()) {
+      total += nanos.get(phase.ordinal());
+    }
+    return TimeUnit.NANOSECONDS.toMillis(total);
+  }
+
+  /**
+   * Counts a verdict or module result taken from a cache.
+   */
+  public void addCacheHit() {
+    cacheHits.incrementAndGet();
+  }
+
+  /**
+   * @param hits the number of cache hits counted by another statistics, e.g. of a parallel chunk
+   */
+  public void addCacheHits(int hits) {
+    cacheHits.addAndGet(hits);
+  }
+
+  public int getCacheHits() {
+    return cacheHits.get();
+  }
+
+  public int getEdges() {
+    return edges;
+  }
+
+  public void setEdges(int edges) {
+    this.edges = edges;
+  }
+
+  public int getLibraries() {
+    return libraries;
+  }
+
+  public void setLibraries(int libraries) {
+    this.libraries = libraries;
+  }
+
+  public int getIssues() {
+    return issues;
+  }
+
+  public void setIssues(int issues) {
+    this.issues = issues;
+  }
+
+  /**
+   * @return the one line summary for the analysis log
+   */
+  @Override
+  public String toString() {
+    StringBuilder summary = new StringBuilder();
+    summary.append(getTotalMillis()).append(" ms (");
+    for (Phase phase : Phase.values()) {
+      if (phase.ordinal() > 0) {
+        summary.append(", ");
+      }
+      summary.append(phase.getName()).append(' ').append(getMillis(phase));
+    }
+    return summary.append("), ").append(edges).append(" edges, ").append(libraries).append(" libraries, ")
+        .append(cacheHits.get()).append(" cache hits, ").append(issues).append(" issues").toString();
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import static org.sonar.plugins.dependencycheck.MeasureEncoder.DEPENDENCY_ALLOWED_RANGE;
+import static org.sonar.plugins.dependencycheck.MeasureEncoder.DEPENDENCY_KEY;
+import static org.sonar.plugins.dependencycheck.MeasureEncoder.DEPENDENCY_LICENSE_ID;
+import static org.sonar.plugins.dependencycheck.MeasureEncoder.DEPENDENCY_SCOPE;
+import static org.sonar.plugins.dependencycheck.MeasureEncoder.DEPENDENCY_STATUS;
+import static org.sonar.plugins.dependencycheck.MeasureEncoder.DEPENDENCY_VERSION;
+import static org.sonar.plugins.dependencycheck.MeasureEncoder.LICENSE_COMMERCIAL;
+import static org.sonar.plugins.dependencycheck.MeasureEncoder.LICENSE_ID;
+import static org.sonar.plugins.dependencycheck.MeasureEncoder.LICENSE_LIBRARIES;
+import static org.sonar.plugins.dependencycheck.MeasureEncoder.LICENSE_SOURCE_TYPE;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The decoded entries of the dependency and license measures of a snapshot, indexed by the library key. The license
+ * titles are resolved from the license catalogue. Measures in the legacy format (which contain the titles) are read
+ * too.
+ */
+public final class DependencyEntryIndex {
+
+  private static final int VERSION = 0;
+  private static final int SCOPE = 1;
+  private static final int LICENSE = 2;
+  private static final int STATUS = 3;
+  private static final int ALLOWED_RANGE = 4;
+
+  private static final int LEGACY_LICENSE = 1;
+  private static final int LEGACY_STATUS = 2;
+  private static final int LEGACY_ALLOWED_RANGE = 3;
+
+  private final Map<String, List<String[]>> entries;
+  private final List<String[]> licenses;
+
+  private DependencyEntryIndex(Map<String, List<String[]>> entries, List<String[]> licenses) {
+    this.entries = entries;
+    this.licenses = Collections.unmodifiableList(licenses);
+  }
+
+  /**
+   * Decodes the data of the dependency and license measures.
+   *
+   * @param dependencyData the data of the dependency measure, may be null
+   * @param licenseData the data of the license measure, may be null
+   * @param catalogue the licenses by id
+   * @return the index
+   */
+  public static DependencyEntryIndex parse(String dependencyData, String licenseData, Map<String, License> catalogue) {
+    List<String[]> licenses = new ArrayList<String[]>();
+    if (MeasureDecoder.isLegacy(licenseData)) {
+      for (String entry : LegacyMeasureDecoder.entries(licenseData)) {
+        List<String> fields = LegacyMeasureDecoder.fields(entry);
+        licenses.add(new String[] {fields.get(0), LegacyMeasureDecoder.field(fields, 1), null, null, null});
+      }
+    }
+    else {
+      for (String entry : MeasureDecoder.entries(licenseData)) {
+        List<String> fields = MeasureDecoder.fields(entry);
+        License license = catalogue.get(fields.get(LICENSE_ID));
+        licenses.add(new String[] {license != null ? license.getTitle() : fields.get(LICENSE_ID), license != null ? license.getUrl() : "",
+          fields.get(LICENSE_LIBRARIES), fields.get(LICENSE_SOURCE_TYPE), fields.get(LICENSE_COMMERCIAL)});
+      }
+    }
+
+    Map<String, List<String[]>> entries = new HashMap<String, List<String[]>>();
+    if (MeasureDecoder.isLegacy(dependencyData)) {
+      for (String entry : LegacyMeasureDecoder.entries(dependencyData)) {
+        List<String> fields = LegacyMeasureDecoder.fields(entry);
+        add(entries, fields.get(0), null, null, LegacyMeasureDecoder.field(fields, LEGACY_LICENSE),
+            LegacyMeasureDecoder.field(fields, LEGACY_STATUS), LegacyMeasureDecoder.field(fields, LEGACY_ALLOWED_RANGE));
+      }
+    }
+    else {
+      for (String entry : MeasureDecoder.entries(dependencyData)) {
+        List<String> fields = MeasureDecoder.fields(entry);
+        License license = catalogue.get(fields.get(DEPENDENCY_LICENSE_ID));
+        add(entries, fields.get(DEPENDENCY_KEY), fields.get(DEPENDENCY_VERSION), fields.get(DEPENDENCY_SCOPE),
+            license != null ? license.getTitle() : "no license information", fields.get(DEPENDENCY_STATUS), fields.get(DEPENDENCY_ALLOWED_RANGE));
+      }
+    }
+    return new DependencyEntryIndex(entries, licenses);
+  }
+
+  private static void add(Map<String, List<String[]>> entries, String key, String version, String scope, String license, String status,
+      String allowedRange) {
+    List<String[]> forKey = entries.get(key);
+    if (forKey == null) {
+      forKey = new ArrayList<String[]>(1);
+      entries.put(key, forKey);
+    }
+    forKey.add(new String[] {version, scope, license, status, allowedRange.length() > 0 ? allowedRange : null});
+  }
+
+  /**
+   * @param libraryKey the key of the library
+   * @return the license, status and allowed version range (null unless the version is wrong) of the first entry of
+   *         the library or null if the library has not been checked
+   */
+  public String[] get(String libraryKey) {
+    return get(libraryKey, null, null);
+  }
+
+  /**
+   * Looks up the entry of a library with a version and scope. If there is no exact match, the first entry with the
+   * version and then the first entry of the library is used (e.g. for measures in the legacy format).
+   *
+   * @param libraryKey the key of the library
+   * @param version the version of the library
+   * @param scope the scope of the library
+   * @return the license, status and allowed version range (null unless the version is wrong) or null if the library
+   *         has not been checked
+   */
+  public String[] get(String libraryKey, String version, String scope) {
+    List<String[]> forKey = entries.get(libraryKey);
+    if (forKey == null) {
+      return null;
+    }
+    String[] match = forKey.get(0);
+    for (String[] entry : forKey) {
+      if (version != null && version.equals(entry[VERSION])) {
+        if (scope != null && scope.equals(entry[SCOPE])) {
+          match = entry;
+          break;
+        }
+        if (match[VERSION] == null || !version.equals(match[VERSION])) {
+          match = entry;
+        }
+      }
+    }
+    return new String[] {match[LICENSE], match[STATUS], match[ALLOWED_RANGE]};
+  }
+
+  /**
+   * @return the title, URL, number of libraries, source type and commercial flag of the used licenses (the last three
+   *         are null for measures in the legacy format)
+   */
+  public List<String[]> getLicenses() {
+    return licenses;
+  }
+
+  /**
+   * @return the number of checked libraries
+   */
+  public int size() {
+    return entries.size();
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.ServerExtension;
+import org.sonar.api.config.Settings;
+
+/**
+ * Keeps the {@link DependencyEntryIndex} and the {@link DependencyTable} of the recently viewed snapshots for the
+ * dependency check page. The data of a snapshot does not change, so the measure is decoded only once per snapshot and
+ * the page looks up the cached index before it loads the measures. If the licenses are changed, the indexes are built
+ * again with the new titles.
+ */
+public class DependencyEntryIndexCache implements ServerExtension {
+
+  private static final int MAX_SNAPSHOTS = 32;
+
+  private final Settings settings;
+  private String licenseXml;
+  private Map<String, License> catalogue;
+
+  private final Map<Long, DependencyEntryIndex> indexes = lruMap();
+  private final Map<String, DependencyTable> tables = lruMap();
+
+  /**
+   * @param settings the server settings, containing the licenses
+   */
+  public DependencyEntryIndexCache(Settings settings) {
+    this.settings = settings;
+  }
+
+  /**
+   * Returns the cached index of a snapshot, so the measures only have to be loaded if it is not cached.
+   *
+   * @param snapshotId the id of the snapshot
+   * @return the index or null if it is not cached
+   */
+  public synchronized DependencyEntryIndex getCachedIndex(long snapshotId) {
+    refreshCatalogue();
+    return indexes.get(snapshotId);
+  }
+
+  /**
+   * Returns the index of the dependency and license measures of a snapshot.
+   *
+   * @param snapshotId the id of the snapshot
+   * @param dependencyData the data of the dependency measure of the snapshot, may be null
+   * @param licenseData the data of the license measure of the snapshot, may be null
+   * @return the index
+   */
+  public synchronized DependencyEntryIndex getIndex(long snapshotId, String dependencyData, String licenseData) {
+    refreshCatalogue();
+    DependencyEntryIndex index = indexes.get(snapshotId);
+    if (index == null) {
+      index = DependencyEntryIndex.parse(dependencyData, licenseData, catalogue);
+      indexes.put(snapshotId, index);
+    }
+    return index;
+  }
+
+  /**
+   * @param snapshotId the id of the snapshot
+   * @param usages the checked usages the rows were selected with
+   * @return the cached table or null if it is not cached
+   */
+  public synchronized DependencyTable getTable(long snapshotId, String usages) {
+    refreshCatalogue();
+    return tables.get(snapshotId + ":" + usages);
+  }
+
+  /**
+   * Caches the table of a snapshot.
+   *
+   * @param snapshotId the id of the snapshot
+   * @param usages the checked usages the rows were selected with
+   * @param rows the rows of the table
+   * @return the table
+   */
+  public synchronized DependencyTable putTable(long snapshotId, String usages, List<String[]> rows) {
+    DependencyTable table = new DependencyTable(rows);
+    tables.put(snapshotId + ":" + usages, table);
+    return table;
+  }
+
+  private void refreshCatalogue() {
+    String newLicenseXml = settings.getString(DependencyCheckMetrics.LICENSE_PROPERTY);
+    if (catalogue == null || !StringUtils.equals(newLicenseXml, licenseXml)) {
+      catalogue = new HashMap<String, License>();
+      for (License license : Licenses.loadFromXml(newLicenseXml)) {
+        catalogue.put(license.getId(), license);
+      }
+      licenseXml = newLicenseXml;
+      indexes.clear();
+      tables.clear();
+    }
+  }
+
+  private static <K, V> Map<K, V> lruMap() {
+    return new LinkedHashMap<K, V>(MAX_SNAPSHOTS, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > MAX_SNAPSHOTS;
+      }
+    };
+  }
+}
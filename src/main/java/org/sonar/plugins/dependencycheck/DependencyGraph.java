@@ -0,0 +1,260 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.sonar.api.design.Dependency;
+import org.sonar.api.resources.Library;
+import org.sonar.api.resources.Resource;
+import org.sonar.api.resources.ResourceUtils;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+
+/**
+ * The library dependencies of an analysis, indexed by the key of the depending resource.
+ * <p>
+ * The transitive dependencies are searched iteratively with a visited set, so shared subtrees are walked only once
+ * and cycles terminate. The closures of the direct dependencies of a module are memoized, sibling modules depending
+ * on the same libraries reuse them. The dependencies of an analysis grow while its modules are analyzed, new
+ * dependencies are added to the graph and only drop the closures they change.
+ */
+public final class DependencyGraph {
+
+  private final Multimap<String, Dependency> dependencyTree;
+  private final ScopeFilter scopeFilter;
+  private final Set<Dependency> known = new HashSet<Dependency>();
+  private final Map<String, Set<Resource>> closures = new HashMap<String, Set<Resource>>();
+  private String libraryFingerprint;
+
+  /**
+   * Builds the graph from the library dependencies in the checked scopes.
+   *
+   * @param dependencies all dependencies of the analysis
+   * @param scopeFilter the maven scopes to check
+   */
+  public DependencyGraph(Collection<Dependency> dependencies, ScopeFilter scopeFilter) {
+    this.dependencyTree = ArrayListMultimap.create();
+    this.scopeFilter = scopeFilter;
+    addAll(dependencies);
+  }
+
+  /**
+   * Adds the dependencies which are not in the graph yet. The memoized closures reaching a library with new
+   * dependencies are dropped, all other closures are kept.
+   *
+   * @param dependencies all dependencies of the analysis
+   * @return the number of added dependencies (incl. the ones not in the checked scopes)
+   */
+  public synchronized int addAll(Collection<Dependency> dependencies) {
+    Set<String> changedLibraries = new HashSet<String>();
+    int added = 0;
+    for (Dependency d : dependencies) {
+      if (known.add(d)) {
+        added++;
+        if (ResourceUtils.isLibrary(d.getTo()) // only include libraries
+          && scopeFilter.accepts(d)) {
+          dependencyTree.put(d.getFrom().getKey(), d);
+          if (ResourceUtils.isLibrary(d.getFrom())) {
+            changedLibraries.add(d.getFrom().getKey());
+          }
+        }
+      }
+    }
+    if (!changedLibraries.isEmpty()) {
+      libraryFingerprint = null;
+      dropClosures(changedLibraries);
+    }
+    return added;
+  }
+
+  private void dropClosures(Set<String> changedLibraries) {
+    for (Iterator<Map.Entry<String, Set<Resource>>> i = closures.entrySet().iterator(); i.hasNext();) {
+      Map.Entry<String, Set<Resource>> closure = i.next();
+      if (changedLibraries.contains(closure.getKey()) || reachesAny(closure.getValue(), changedLibraries)) {
+        i.remove();
+      }
+    }
+  }
+
+  private static boolean reachesAny(Set<Resource> closure, Set<String> keys) {
+    for (Resource resource : closure) {
+      if (keys.contains(resource.getKey())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the number of dependencies (incl. the ones not in the checked scopes) this graph was built from
+   */
+  public synchronized int getDependencyCount() {
+    return known.size();
+  }
+
+  /**
+   * @return the maven scopes checked by this graph
+   */
+  public ScopeFilter getScopeFilter() {
+    return scopeFilter;
+  }
+
+  /**
+   * Finds the transitive dependencies of the key in the graph.
+   *
+   * @param fromKey the key to search for
+   * @return a set of all dependencies (incl. transitive)
+   */
+  public Set<Resource> findTransitiveDependencies(String fromKey) {
+    return findScopedDependencies(fromKey).keySet();
+  }
+
+  /**
+   * Finds the transitive dependencies of the key in the graph with their scope. Transitive dependencies get the
+   * strongest scope of the direct dependencies they are reached by, independent of the order of the dependencies.
+   *
+   * @param fromKey the key to search for
+   * @return all dependencies (incl. transitive) with their scope
+   */
+  public synchronized Map<Resource, DependencyScope> findScopedDependencies(String fromKey) {
+    Map<String, Resource> visited = new HashMap<String, Resource>();
+    Map<Resource, DependencyScope> actualDependencies = new LinkedHashMap<Resource, DependencyScope>();
+    for (Dependency dependency : dependencyTree.get(fromKey)) {
+      Resource to = dependency.getTo();
+      DependencyScope scope = DependencyScope.fromUsage(dependency.getUsage());
+      putScope(to, scope, visited, actualDependencies);
+      for (Resource resource : closureOf(to.getKey())) {
+        putScope(resource, scope, visited, actualDependencies);
+      }
+    }
+    return actualDependencies;
+  }
+
+  private static void putScope(Resource resource, DependencyScope scope, Map<String, Resource> visited,
+      Map<Resource, DependencyScope> actualDependencies) {
+    Resource first = visited.get(resource.getKey());
+    if (first == null) {
+      visited.put(resource.getKey(), resource);
+      actualDependencies.put(resource, scope);
+    }
+    else if (scope != null && scope.isStrongerThan(actualDependencies.get(first))) {
+      actualDependencies.put(first, scope);
+    }
+  }
+
+  /**
+   * Fingerprints the dependencies of the key without walking them: the direct dependencies of the key and all
+   * dependencies between libraries of the analysis (so a changed transitive version changes every fingerprint).
+   *
+   * @param fromKey the key to fingerprint
+   * @return a hash of the key, versions and scopes of the dependencies
+   */
+  public synchronized String fingerprint(String fromKey) {
+    if (libraryFingerprint == null) {
+      List<String> edges = Lists.newArrayList();
+      for (Dependency dependency : dependencyTree.values()) {
+        if (ResourceUtils.isLibrary(dependency.getFrom())) {
+          edges.add(edge(dependency));
+        }
+      }
+      libraryFingerprint = hash("", edges);
+    }
+    List<String> edges = Lists.newArrayList();
+    for (Dependency dependency : dependencyTree.get(fromKey)) {
+      edges.add(edge(dependency));
+    }
+    return hash(libraryFingerprint, edges);
+  }
+
+  private static String edge(Dependency dependency) {
+    return coordinates(dependency.getFrom()) + '>' + coordinates(dependency.getTo()) + ':' + dependency.getUsage();
+  }
+
+  private static String coordinates(Resource resource) {
+    return resource instanceof Library ? resource.getKey() + '@' + ((Library) resource).getVersion() : resource.getKey();
+  }
+
+  private static String hash(String prefix, List<String> edges) {
+    Collections.sort(edges);
+    StringBuilder data = new StringBuilder(prefix);
+    for (String edge : edges) {
+      data.append('\n').append(edge);
+    }
+    return DigestUtils.sha1Hex(data.toString());
+  }
+
+  /**
+   * Memoized transitive dependencies of a single resource.
+   */
+  private Set<Resource> closureOf(String key) {
+    Set<Resource> closure = closures.get(key);
+    if (closure == null) {
+      closure = walk(key);
+      closures.put(key, closure);
+    }
+    return closure;
+  }
+
+  private Set<Resource> walk(String fromKey) {
+    Set<String> visited = new HashSet<String>();
+    Set<Resource> actualDependencies = new LinkedHashSet<Resource>();
+    Deque<String> stack = new ArrayDeque<String>();
+    visited.add(fromKey);
+    stack.push(fromKey);
+
+    while (!stack.isEmpty()) {
+      for (Dependency dependency : dependencyTree.get(stack.pop())) {
+        Resource to = dependency.getTo();
+        if (visited.add(to.getKey())) {
+          actualDependencies.add(to);
+          Set<Resource> closure = closures.get(to.getKey());
+          if (closure != null) {
+            addAll(closure, visited, actualDependencies);
+          }
+          else {
+            stack.push(to.getKey());
+          }
+        }
+      }
+    }
+    return Collections.unmodifiableSet(actualDependencies);
+  }
+
+  private static void addAll(Set<Resource> resources, Set<String> visited, Set<Resource> actualDependencies) {
+    for (Resource resource : resources) {
+      if (visited.add(resource.getKey())) {
+        actualDependencies.add(resource);
+      }
+    }
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.util.Set;
+
+import org.sonar.api.BatchExtension;
+import org.sonar.api.batch.InstantiationStrategy;
+import org.sonar.api.design.Dependency;
+
+/**
+ * Keeps the {@link DependencyGraph} of the analysis so modules can reuse it (and its memoized closures).
+ * <p>
+ * The dependencies of the analysis only grow while modules are analyzed, so new dependencies are added to the graph.
+ * The graph is only rebuilt if the checked scopes differ.
+ */
+@InstantiationStrategy(InstantiationStrategy.PER_BATCH)
+public class DependencyGraphCache implements BatchExtension {
+
+  private DependencyGraph graph;
+
+  /**
+   * Returns the graph for the dependencies of the analysis.
+   *
+   * @param dependencies all dependencies of the analysis
+   * @param scopes the maven scopes to check
+   * @return the (shared) graph
+   */
+  public synchronized DependencyGraph getGraph(Set<Dependency> dependencies, ScopeFilter scopes) {
+    if (graph == null || !scopes.equals(graph.getScopeFilter())) {
+      graph = new DependencyGraph(dependencies, scopes);
+    }
+    else if (graph.getDependencyCount() != dependencies.size()) {
+      graph.addAll(dependencies);
+    }
+    return graph;
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.sonar.api.issue.Issuable;
+import org.sonar.api.rule.RuleKey;
+
+/**
+ * Collects the rule violations of a module, so the issues are created in one pass once all dependencies are checked.
+ * <p>
+ * With a limit, only the first violations of each rule (by dependency key) become issues, the remaining ones are
+ * reported by one summary issue.
+ */
+public final class DependencyIssues {
+
+  static final RuleKey UNLISTED_RULE = RuleKey.of(DependencyCheckMetrics.DEPENDENCY_CHECK_KEY,
+    DependencyCheckMetrics.DEPENDENCY_CHECK_UNLISTED_KEY);
+  static final RuleKey WRONG_VERSION_RULE = RuleKey.of(DependencyCheckMetrics.DEPENDENCY_CHECK_KEY,
+    DependencyCheckMetrics.DEPENDENCY_CHECK_WRONG_VERSION_KEY);
+
+  private static final Comparator<Violation> BY_KEY = new Comparator<Violation>() {
+    public int compare(Violation o1, Violation o2) {
+      return o1.dependencyKey.compareTo(o2.dependencyKey);
+    }
+  };
+
+  private final int limit;
+  private final List<Violation> unlisted = new ArrayList<Violation>();
+  private final List<Violation> wrongVersion = new ArrayList<Violation>();
+
+  /**
+   * @param limit the maximum number of issues per rule, 0 or less for no limit
+   */
+  public DependencyIssues(int limit) {
+    this.limit = limit;
+  }
+
+  /**
+   * @param dependencyKey the key of a dependency that is not listed
+   */
+  public void addUnlisted(String dependencyKey) {
+    unlisted.add(new Violation(dependencyKey, null, null));
+  }
+
+  /**
+   * @param dependencyKey the key of the dependency
+   * @param version the version of the dependency
+   * @param versionRange the accepted version range
+   */
+  public void addWrongVersion(String dependencyKey, String version, String versionRange) {
+    wrongVersion.add(new Violation(dependencyKey, version, versionRange));
+  }
+
+  /**
+   * Adds the violations collected by another batch (e.g. for a part of the dependencies).
+   *
+   * @param other the other batch
+   */
+  public void addAll(DependencyIssues other) {
+    unlisted.addAll(other.unlisted);
+    wrongVersion.addAll(other.wrongVersion);
+  }
+
+  /**
+   * @return the number of violations added
+   */
+  public int size() {
+    return unlisted.size() + wrongVersion.size();
+  }
+
+  /**
+   * @return true if no violations have been added
+   */
+  public boolean isEmpty() {
+    return unlisted.isEmpty() && wrongVersion.isEmpty();
+  }
+
+  /**
+   * Creates the issues of the collected violations.
+   *
+   * @param issuable the issuable of the module
+   */
+  public void save(Issuable issuable) {
+    save(issuable, UNLISTED_RULE, unlisted, " more unlisted dependencies");
+    save(issuable, WRONG_VERSION_RULE, wrongVersion, " more dependencies out of the accepted version range");
+  }
+
+  private void save(Issuable issuable, RuleKey rule, List<Violation> violations, String summary) {
+    Collections.sort(violations, BY_KEY);
+    int count = limit > 0 ? Math.min(limit, violations.size()) : violations.size();
+    for (int i = 0; i < count; i++) {
+      issuable.addIssue(issuable.newIssueBuilder()
+          .ruleKey(rule)
+          .message(violations.get(i).message())
+          .build());
+    }
+    if (count < violations.size()) {
+      issuable.addIssue(issuable.newIssueBuilder()
+          .ruleKey(rule)
+          .message((violations.size() - count) + summary)
+          .build());
+    }
+  }
+
+  private static final class Violation {
+    private final String dependencyKey;
+    private final String version;
+    private final String versionRange;
+
+    private Violation(String dependencyKey, String version, String versionRange) {
+      this.dependencyKey = dependencyKey;
+      this.version = version;
+      this.versionRange = versionRange;
+    }
+
+    private String message() {
+      if (version == null) {
+        return "Dependency: " + dependencyKey + " is not listed!";
+      }
+      return "Dependency: " + dependencyKey + " with version: " + version
+        + " is out of the accepted version range! Accepted version Range: " + versionRange;
+    }
+  }
+}
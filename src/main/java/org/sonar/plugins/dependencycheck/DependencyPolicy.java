@@ -0,0 +1,81 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * The allowed dependencies and licenses a module is checked against. Instances are created by the
+ * {@link DependencyPolicyCache} and are shared between all modules with the same configuration.
+ * <p>
+ * The project dependencies are an overlay on the global dependencies: a dependency matched by a project dependency
+ * is only looked up in the (shared) global index if no project dependency matches.
+ */
+public final class DependencyPolicy {
+
+  private final String hash;
+  private final AllowedDependencyIndex projectDependencies;
+  private final AllowedDependencyIndex globalDependencies;
+  private final Map<String, License> licenses;
+
+  /**
+   * @param hash hash of the raw property values this policy was created from
+   * @param projectDependencies index of the project dependencies (with resolved licenses), null if there are none
+   * @param globalDependencies index of the global dependencies (with resolved licenses)
+   * @param licenses the licenses by id
+   */
+  public DependencyPolicy(String hash, AllowedDependencyIndex projectDependencies, AllowedDependencyIndex globalDependencies,
+      Map<String, License> licenses) {
+    this.hash = hash;
+    this.projectDependencies = projectDependencies;
+    this.globalDependencies = globalDependencies;
+    this.licenses = ImmutableMap.copyOf(licenses);
+  }
+
+  /**
+   * @return hash of the raw property values this policy was created from
+   */
+  public String getHash() {
+    return hash;
+  }
+
+  /**
+   * Searches the allowed dependency for a dependency key, in the project dependencies first.
+   *
+   * @param dependencyKey the key of the currently handled dependency
+   * @return the matching allowed dependency or null if the dependency is not listed
+   */
+  public AllowedDependency find(String dependencyKey) {
+    AllowedDependency projectDependency = projectDependencies != null ? projectDependencies.find(dependencyKey) : null;
+    return projectDependency != null ? projectDependency : globalDependencies.find(dependencyKey);
+  }
+
+  /**
+   * @param licenseId the id of the license
+   * @return the license or null if there is no license with this id
+   */
+  public License getLicense(String licenseId) {
+    return licenseId != null ? licenses.get(licenseId) : null;
+  }
+
+  public Map<String, License> getLicenses() {
+    return licenses;
+  }
+}
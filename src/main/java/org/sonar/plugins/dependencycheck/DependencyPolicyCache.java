@@ -0,0 +1,198 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import static org.sonar.plugins.dependencycheck.DependencyCheckMetrics.COMPILED_POLICY_PROPERTY;
+import static org.sonar.plugins.dependencycheck.DependencyCheckMetrics.LIBRARY_GLOBAL_PROPERTY;
+import static org.sonar.plugins.dependencycheck.DependencyCheckMetrics.LIBRARY_PROJECT_PROPERTY;
+import static org.sonar.plugins.dependencycheck.DependencyCheckMetrics.LICENSE_PROPERTY;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.BatchExtension;
+import org.sonar.api.batch.InstantiationStrategy;
+import org.sonar.api.config.Settings;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Parses the allowed dependencies and licenses once per analysis. The global dependencies and licenses are shared by
+ * all modules, the project dependencies are only parsed if a module overrides them and are indexed as an overlay, so
+ * the global dependencies are never copied for a module.
+ * <p>
+ * The global dependencies and licenses are read from the {@link CompiledPolicy} of the server if it has been compiled
+ * from the current XML, else from the XML. The XML is hashed to check that, which is cheap compared to parsing it.
+ */
+@InstantiationStrategy(InstantiationStrategy.PER_BATCH)
+public class DependencyPolicyCache implements BatchExtension {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DependencyPolicyCache.class);
+
+  /**
+   * The properties covered by the hash of a policy.
+   */
+  private static final Set<String> POLICY_PROPERTIES = ImmutableSet.of(LIBRARY_GLOBAL_PROPERTY, LIBRARY_PROJECT_PROPERTY,
+      LICENSE_PROPERTY, COMPILED_POLICY_PROPERTY);
+
+  private String globalXml;
+  private String licenseXml;
+  private String globalHash;
+  private AllowedDependencyIndex globalDependencies;
+  private Map<String, License> licenses;
+  private final Map<String, DependencyPolicy> policies = new HashMap<String, DependencyPolicy>();
+  private final Map<String, String> namespaces = new HashMap<String, String>();
+
+  /**
+   * Returns the policy for the settings of a module.
+   *
+   * @param settings the settings of the module
+   * @return the (shared) policy
+   */
+  public synchronized DependencyPolicy getPolicy(Settings settings) {
+    String newGlobalXml = settings.getString(LIBRARY_GLOBAL_PROPERTY);
+    String newLicenseXml = settings.getString(LICENSE_PROPERTY);
+    String projectXml = settings.getString(LIBRARY_PROJECT_PROPERTY);
+
+    // modules usually share the very same property values, so hashing can be skipped then
+    if (globalHash == null || newGlobalXml != globalXml || newLicenseXml != licenseXml) {
+      String newGlobalHash = CompiledPolicy.sourceHash(newGlobalXml, newLicenseXml);
+      if (!newGlobalHash.equals(globalHash)) {
+        loadGlobal(newGlobalXml, newLicenseXml, settings.getString(COMPILED_POLICY_PROPERTY), newGlobalHash);
+        globalHash = newGlobalHash;
+      }
+      globalXml = newGlobalXml;
+      licenseXml = newLicenseXml;
+    }
+
+    String policyHash = hash(AllowedDependencyIndex.MATCHING_VERSION + globalHash + hash(projectXml));
+    DependencyPolicy policy = policies.get(policyHash);
+    if (policy == null) {
+      policy = createPolicy(policyHash, projectXml);
+      policies.put(policyHash, policy);
+    }
+    return policy;
+  }
+
+  /**
+   * Returns the namespace of the verdicts and module results of a policy. They only depend on the policy, but are
+   * invalidated if any other dependency check setting changes. The (large) properties of the policy are covered by
+   * its hash, so the namespace is computed once per policy and the other settings.
+   *
+   * @param policy the policy of the module, see {@link #getPolicy(Settings)}
+   * @param settings the settings of the module
+   * @return the (shared) namespace
+   */
+  public synchronized String getNamespace(DependencyPolicy policy, Settings settings) {
+    Map<String, String> properties = new TreeMap<String, String>();
+    for (Map.Entry<String, String> property : settings.getProperties().entrySet()) {
+      String key = property.getKey();
+      if ((key.startsWith("sonar.dependencycheck.") || key.startsWith("dependencycheck.")) && !POLICY_PROPERTIES.contains(key)) {
+        properties.put(key, property.getValue());
+      }
+    }
+    StringBuilder data = new StringBuilder(policy.getHash());
+    for (Map.Entry<String, String> property : properties.entrySet()) {
+      data.append('\n').append(property.getKey()).append('=').append(property.getValue());
+    }
+    String namespaceKey = data.toString();
+    String namespace = namespaces.get(namespaceKey);
+    if (namespace == null) {
+      namespace = DigestUtils.sha1Hex(namespaceKey);
+      namespaces.put(namespaceKey, namespace);
+    }
+    return namespace;
+  }
+
+  private void useCompiled(CompiledPolicy newCompiled) {
+    // policies of the previous global configuration are outdated
+    policies.clear();
+    namespaces.clear();
+
+    LOGGER.debug("Loading compiled global allowed dependencies and licenses");
+    licenses = ImmutableMap.copyOf(newCompiled.getLicenses());
+    globalDependencies = new AllowedDependencyIndex(newCompiled.getDependencies());
+  }
+
+  private void loadGlobal(String newGlobalXml, String newLicenseXml, String compiledArtifact, String newGlobalHash) {
+    CompiledPolicy newCompiled = decodeCompiled(compiledArtifact);
+    if (newCompiled != null && newCompiled.getSourceHash().equals(newGlobalHash)) {
+      useCompiled(newCompiled);
+      return;
+    }
+
+    // policies of the previous global configuration are outdated
+    policies.clear();
+    namespaces.clear();
+
+    LOGGER.debug("Loading global allowed dependencies and licenses");
+    Map<String, License> licensesById = new HashMap<String, License>();
+    for (License license : Licenses.loadFromXml(newLicenseXml)) {
+      if (license.getId() != null) {
+        licensesById.put(license.getId(), license);
+      }
+    }
+    licenses = ImmutableMap.copyOf(licensesById);
+
+    globalDependencies = new AllowedDependencyIndex(withLicenses(AllowedDependencies.loadFromXml(newGlobalXml)));
+  }
+
+  private static CompiledPolicy decodeCompiled(String artifact) {
+    if (StringUtils.isEmpty(artifact)) {
+      return null;
+    }
+    try {
+      return CompiledPolicy.decode(artifact);
+    }
+    catch (IllegalArgumentException e) {
+      LOGGER.warn("Ignoring the compiled allowed dependencies and licenses: {}", e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Creates a policy of allowed Dependencies for the Project - configurable in the Project settings in the category
+   * dependency check - on top of the global dependencies. A project dependency overrides the global dependencies
+   * matching the same libraries.
+   */
+  private DependencyPolicy createPolicy(String policyHash, String projectXml) {
+    List<AllowedDependency> projectDependencies = withLicenses(AllowedDependencies.loadFromXml(projectXml));
+    AllowedDependencyIndex overlay = projectDependencies.isEmpty() ? null : new AllowedDependencyIndex(projectDependencies);
+    return new DependencyPolicy(policyHash, overlay, globalDependencies, licenses);
+  }
+
+  private List<AllowedDependency> withLicenses(List<AllowedDependency> dependencies) {
+    ImmutableList.Builder<AllowedDependency> resolved = ImmutableList.builder();
+    for (AllowedDependency dependency : dependencies) {
+      resolved.add(dependency.withLicense(licenses.get(dependency.getLicenseId())));
+    }
+    return resolved.build();
+  }
+
+  private static String hash(String value) {
+    return DigestUtils.sha1Hex(StringUtils.defaultString(value));
+  }
+}
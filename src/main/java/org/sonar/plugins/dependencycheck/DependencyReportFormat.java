@@ -0,0 +1,154 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import org.sonar.api.ServerExtension;
+
+/**
+ * Formats the rows of the dependency export. The export page writes each row to the response as soon as it is
+ * formatted, so large exports are not built in memory.
+ */
+public class DependencyReportFormat implements ServerExtension {
+
+  /**
+   * Comma separated values, fields are quoted.
+   */
+  public static final String CSV = "csv";
+  /**
+   * One JSON object per line.
+   */
+  public static final String JSON_LINES = "jsonl";
+
+  static final String[] COLUMNS = {"project", "library", "usage", "version", "license", "status", "allowedVersions"};
+
+  /**
+   * @param format the format
+   * @return true if the format is supported
+   */
+  public boolean isSupported(String format) {
+    return CSV.equals(format) || JSON_LINES.equals(format);
+  }
+
+  /**
+   * @param format the format
+   * @return the content type of the format
+   */
+  public String getContentType(String format) {
+    return JSON_LINES.equals(format) ? "application/x-ndjson; charset=utf-8" : "text/csv; charset=utf-8";
+  }
+
+  /**
+   * @param format the format
+   * @return the header line (incl. line break), empty if the format has no header
+   */
+  public String header(String format) {
+    if (JSON_LINES.equals(format)) {
+      return "";
+    }
+    return csvLine(COLUMNS);
+  }
+
+  /**
+   * Formats a row of the export.
+   *
+   * @param format the format
+   * @param fields the fields of the row in the order of the columns (project, library, usage, version, license,
+   *          status, allowed versions), null fields are allowed
+   * @return the formatted line (incl. line break)
+   */
+  public String row(String format, String[] fields) {
+    return JSON_LINES.equals(format) ? jsonLine(fields) : csvLine(fields);
+  }
+
+  static String csvLine(String[] fields) {
+    StringBuilder line = new StringBuilder(16 * fields.length);
+    for (int i = 0; i < fields.length; i++) {
+      if (i > 0) {
+        line.append(',');
+      }
+      line.append('"');
+      String field = fields[i];
+      if (field != null) {
+        for (int c = 0; c < field.length(); c++) {
+          char ch = field.charAt(c);
+          if (ch == '"') {
+            line.append('"');
+          }
+          line.append(ch);
+        }
+      }
+      line.append('"');
+    }
+    return line.append("\r\n").toString();
+  }
+
+  static String jsonLine(String[] fields) {
+    return jsonLine(COLUMNS, fields);
+  }
+
+  static String jsonLine(String[] columns, String[] fields) {
+    StringBuilder line = new StringBuilder(32 * fields.length);
+    line.append('{');
+    for (int i = 0; i < fields.length && i < columns.length; i++) {
+      if (i > 0) {
+        line.append(',');
+      }
+      appendJsonString(line, columns[i]);
+      line.append(':');
+      if (fields[i] == null) {
+        line.append("null");
+      }
+      else {
+        appendJsonString(line, fields[i]);
+      }
+    }
+    return line.append("}\n").toString();
+  }
+
+  private static void appendJsonString(StringBuilder line, String value) {
+    line.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          line.append("\\\"");
+          break;
+        case '\\':
+          line.append("\\\\");
+          break;
+        case '\n':
+          line.append("\\n");
+          break;
+        case '\r':
+          line.append("\\r");
+          break;
+        case '\t':
+          line.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            line.append(String.format("\\u%04x", (int) c));
+          }
+          else {
+            line.append(c);
+          }
+      }
+    }
+    line.append('"');
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * This enum represents the maven scope (usage) of a dependency.
+ */
+public enum DependencyScope {
+  COMPILE,
+  RUNTIME,
+  TEST,
+  PROVIDED,
+  SYSTEM,
+  IMPORT;
+
+  /**
+   * The scopes from the strongest to the weakest: a library used in compile scope is shipped and used by the code,
+   * a library only used by tests is not.
+   */
+  private static final List<DependencyScope> PRECEDENCE = Arrays.asList(COMPILE, RUNTIME, PROVIDED, SYSTEM, IMPORT, TEST);
+
+  private static final Map<String, DependencyScope> BY_NAME = new HashMap<String, DependencyScope>();
+  static {
+    for (DependencyScope scope : values()) {
+      BY_NAME.put(scope.getName(), scope);
+    }
+  }
+
+  /**
+   * @return the name of the scope as used by maven
+   */
+  public String getName() {
+    return name().toLowerCase(Locale.ENGLISH);
+  }
+
+  /**
+   * Looks up the scope of a dependency usage.
+   *
+   * @param usage the usage of a dependency, e.g. "compile"
+   * @return the scope or null if the usage is not a known scope
+   */
+  public static DependencyScope fromUsage(String usage) {
+    if (usage == null) {
+      return null;
+    }
+    DependencyScope scope = BY_NAME.get(usage);
+    return scope != null ? scope : BY_NAME.get(usage.trim().toLowerCase(Locale.ENGLISH));
+  }
+
+  /**
+   * @param other another scope, may be null
+   * @return true if this scope is stronger than the other one (every scope is stronger than null)
+   */
+  public boolean isStrongerThan(DependencyScope other) {
+    return other == null || PRECEDENCE.indexOf(this) < PRECEDENCE.indexOf(other);
+  }
+}
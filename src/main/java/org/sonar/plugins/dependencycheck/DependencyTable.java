@@ -0,0 +1,107 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The rows of the dependency table of a snapshot on the dependency check page (library, usage, version, license,
+ * status and allowed versions). The table is sorted and paged here, each sort order is computed once and a page is a
+ * view of it.
+ */
+public final class DependencyTable {
+
+  /**
+   * The sortable columns, in the order of the row fields.
+   */
+  public static final List<String> COLUMNS = ImmutableList.of("library", "usage", "version", "license", "status");
+
+  private final List<String[]> rows;
+  private final Map<Integer, List<String[]>> orders = new HashMap<Integer, List<String[]>>();
+
+  /**
+   * @param rows the rows of the table
+   */
+  public DependencyTable(List<String[]> rows) {
+    this.rows = new ArrayList<String[]>(rows);
+  }
+
+  /**
+   * @return the number of rows
+   */
+  public int size() {
+    return rows.size();
+  }
+
+  /**
+   * Returns a page of the sorted rows. The rows are sorted case-insensitively by the column and then by the library,
+   * descending order reverses both.
+   *
+   * @param column the column to sort by, see {@link #COLUMNS}, the library if unknown
+   * @param ascending true for ascending order
+   * @param page the page, starting with 1
+   * @param pageSize the number of rows of a page
+   * @return the rows of the page, empty if the page is after the last one
+   */
+  public synchronized List<String[]> page(String column, boolean ascending, int page, int pageSize) {
+    int columnIndex = Math.max(0, COLUMNS.indexOf(column));
+    Integer key = ascending ? columnIndex : -columnIndex - 1;
+    List<String[]> order = orders.get(key);
+    if (order == null) {
+      order = new ArrayList<String[]>(rows);
+      Collections.sort(order, new ByColumn(columnIndex));
+      if (!ascending) {
+        Collections.reverse(order);
+      }
+      order = Collections.unmodifiableList(order);
+      orders.put(key, order);
+    }
+    int from = Math.min(Math.max(0, page - 1) * pageSize, order.size());
+    return order.subList(from, Math.min(from + pageSize, order.size()));
+  }
+
+  private static final class ByColumn implements Comparator<String[]> {
+    private final int column;
+
+    private ByColumn(int column) {
+      this.column = column;
+    }
+
+    public int compare(String[] row1, String[] row2) {
+      int result = compareField(row1, row2, column);
+      return result != 0 ? result : compareField(row1, row2, 0);
+    }
+
+    private static int compareField(String[] row1, String[] row2, int index) {
+      return String.CASE_INSENSITIVE_ORDER.compare(field(row1, index), field(row2, index));
+    }
+
+    private static String field(String[] row, int index) {
+      return index < row.length ? StringUtils.defaultString(row[index]) : "";
+    }
+  }
+}
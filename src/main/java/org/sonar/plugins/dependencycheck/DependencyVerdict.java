@@ -0,0 +1,108 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+/**
+ * The result of checking a library version against a policy: the status, the license id and for wrong versions the
+ * allowed version range.
+ */
+public final class DependencyVerdict {
+
+  public static final String OK = "OK";
+  public static final String UNLISTED = "UNLISTED";
+  public static final String WRONG_VERSION = "WRONG_VERSION";
+
+  private static final DependencyVerdict UNLISTED_VERDICT = new DependencyVerdict(UNLISTED, "", "");
+
+  private final String status;
+  private final String licenseId;
+  private final String allowedRange;
+
+  DependencyVerdict(String status, String licenseId, String allowedRange) {
+    this.status = status;
+    this.licenseId = licenseId;
+    this.allowedRange = allowedRange;
+  }
+
+  /**
+   * Checks a library version against a policy.
+   *
+   * @param policy the allowed dependencies and licenses
+   * @param dependencyKey the key of the library
+   * @param dependencyVersion the version of the library
+   * @return the verdict
+   */
+  public static DependencyVerdict evaluate(DependencyPolicy policy, String dependencyKey, String dependencyVersion) {
+    return evaluate(policy, dependencyKey, dependencyVersion, null);
+  }
+
+  /**
+   * Checks a library version against a policy and records the time spent matching the key and evaluating the
+   * version.
+   *
+   * @param policy the allowed dependencies and licenses
+   * @param dependencyKey the key of the library
+   * @param dependencyVersion the version of the library
+   * @param statistics the statistics of the module, may be null
+   * @return the verdict
+   */
+  static DependencyVerdict evaluate(DependencyPolicy policy, String dependencyKey, String dependencyVersion,
+      DependencyCheckStatistics statistics) {
+    long start = DependencyCheckStatistics.start();
+    AllowedDependency allowedDependency = policy.find(dependencyKey);
+    if (statistics != null) {
+      statistics.stop(DependencyCheckStatistics.Phase.MATCHING, start);
+    }
+    if (allowedDependency == null) {
+      return UNLISTED_VERDICT;
+    }
+
+    License license = allowedDependency.getLicense();
+    String licenseId = license != null ? license.getId() : "";
+    start = DependencyCheckStatistics.start();
+    boolean versionAllowed = Utilities.versionAllowed(dependencyVersion, allowedDependency.getParsedVersionRange());
+    if (statistics != null) {
+      statistics.stop(DependencyCheckStatistics.Phase.VERSIONS, start);
+    }
+    if (!versionAllowed) {
+      return new DependencyVerdict(WRONG_VERSION, licenseId, allowedDependency.getVersionRange());
+    }
+    return new DependencyVerdict(OK, licenseId, "");
+  }
+
+  /**
+   * @return OK, UNLISTED or WRONG_VERSION
+   */
+  public String getStatus() {
+    return status;
+  }
+
+  /**
+   * @return the license id, empty if the library is not listed or has no license
+   */
+  public String getLicenseId() {
+    return licenseId;
+  }
+
+  /**
+   * @return the allowed version range for wrong versions, else empty
+   */
+  public String getAllowedRange() {
+    return allowedRange;
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Decodes the data of the dependency and license measures in the legacy format, which was written before the
+ * {@link MeasureEncoder} format had a version. Entries are terminated by a semicolon, the fields of an entry are
+ * separated by a tilde. The format has no escaping, as the analyses writing it did not escape the separators.
+ * <p>
+ * Dependency entries are key, license title, status and allowed version range; license entries are title and URL.
+ */
+public final class LegacyMeasureDecoder {
+
+  static final char ENTRY_SEPARATOR = ';';
+  static final char FIELD_SEPARATOR = '~';
+
+  private static final int DEPENDENCY_STATUS = 2;
+  private static final int DEPENDENCY_ALLOWED_RANGE = 3;
+
+  private LegacyMeasureDecoder() {
+  }
+
+  /**
+   * Converts legacy dependency measure data to entries of the current format. The legacy format has no version,
+   * scope and license id, so they are left empty.
+   *
+   * @param data the legacy measure data, may be null
+   * @return the entries in the current format
+   */
+  public static List<String> toDependencyEntries(String data) {
+    List<String> entries = new ArrayList<String>();
+    for (String entry : entries(data)) {
+      List<String> fields = fields(entry);
+      entries.add(MeasureEncoder.dependencyEntry(fields.get(0), "", "", "", field(fields, DEPENDENCY_STATUS),
+          field(fields, DEPENDENCY_ALLOWED_RANGE)));
+    }
+    return entries;
+  }
+
+  static String field(List<String> fields, int index) {
+    return index < fields.size() ? fields.get(index) : "";
+  }
+
+  /**
+   * Splits the measure data into its (non-empty) entries.
+   *
+   * @param data the measure data, may be null
+   * @return the entries
+   */
+  public static List<String> entries(String data) {
+    if (data == null || data.length() == 0) {
+      return Collections.emptyList();
+    }
+    return Arrays.asList(StringUtils.split(data, ENTRY_SEPARATOR));
+  }
+
+  /**
+   * Splits an entry into its fields, empty fields included.
+   *
+   * @param entry the entry
+   * @return the fields
+   */
+  public static List<String> fields(String entry) {
+    return Arrays.asList(StringUtils.splitPreserveAllTokens(entry, FIELD_SEPARATOR));
+  }
+}
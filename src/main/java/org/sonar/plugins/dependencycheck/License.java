@@ -17,31 +17,18 @@
  */
 package org.sonar.plugins.dependencycheck;
 
-import javax.xml.bind.annotation.XmlElement;
+import org.apache.commons.lang.ObjectUtils;
 
 /**
- * This class stores a License which is used in the plugin.
+ * This class stores a License which is used in the plugin. Instances are immutable and compare by their values.
  */
-public class License {
-  @XmlElement
-  private String id;
-  @XmlElement
-  private String title;
-  @XmlElement
-  private String description;
-  @XmlElement
-  private String url;
-  @XmlElement
-  private SourceType sourceType;
-  @XmlElement
-  private boolean commercial;
-
-  /**
-   * Creates empty license.
-   */
-  public License() {
-    super();
-  }
+public final class License {
+  private final String id;
+  private final String title;
+  private final String description;
+  private final String url;
+  private final SourceType sourceType;
+  private final boolean commercial;
 
   /**
    * @param id .
@@ -84,4 +71,29 @@ public class License {
   public boolean isCommercial() {
     return commercial;
   }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof License)) {
+      return false;
+    }
+    License other = (License) obj;
+    return ObjectUtils.equals(id, other.id) && ObjectUtils.equals(title, other.title) && ObjectUtils.equals(description, other.description)
+      && ObjectUtils.equals(url, other.url) && sourceType == other.sourceType && commercial == other.commercial;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = ObjectUtils.hashCode(id);
+    result = 31 * result + ObjectUtils.hashCode(title);
+    return 31 * result + ObjectUtils.hashCode(url);
+  }
+
+  @Override
+  public String toString() {
+    return id + " (" + title + ")";
+  }
 }
@@ -17,60 +17,83 @@
  */
 package org.sonar.plugins.dependencycheck;
 
-import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
-import javax.xml.bind.annotation.XmlElement;
-import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.stream.XMLStreamException;
 
 import org.apache.commons.lang.StringUtils;
-import org.sonar.api.utils.SonarException;
 
 /**
- * Wrapper for XML serializing licenses.
+ * Reads the licenses from XML.
+ * <p>
+ * The XML is streamed. The descriptions are only shown in the configuration page (which loads them through the
+ * {@link PolicyStore}), so they are skipped and not kept in memory during the analysis.
  */
-@XmlRootElement(name = "licenses")
-public class Licenses {
+public final class Licenses {
 
-  private static JAXBContext jaxbContext;
-  static {
-    try {
-      jaxbContext = JAXBContext.newInstance(Licenses.class);
-    }
-    catch (JAXBException e) {
-      throw new SonarException("Failure creating JAXBContext for Licenses", e);
-    }
+  private Licenses() {
   }
 
-  @XmlElement(name = "license")
-  private List<License> licenses;
-
-  public List<License> getLicenses() {
-    return licenses;
+  /**
+   * Load list of licenses from XML. The descriptions of the licenses are not loaded.
+   * @param xml XML string
+   * @return list of licenses
+   */
+  public static List<License> loadFromXml(String xml) {
+    return loadFromXml(xml, false);
   }
 
   /**
    * Load list of licenses from XML.
    * @param xml XML string
+   * @param withDescriptions true to load the descriptions (for editing the licenses)
    * @return list of licenses
    */
-  public static List<License> loadFromXml(String xml) {
+  static List<License> loadFromXml(String xml, boolean withDescriptions) {
 
     if(StringUtils.isEmpty(xml)) {
       return Collections.emptyList();
     }
 
+    final List<License> licenses = new ArrayList<License>();
+    PolicyXmlReader reader = new PolicyXmlReader("license",
+      withDescriptions ? Collections.<String>emptySet() : Collections.singleton("description"),
+      new HashSet<String>(Arrays.asList("sourceType", "commercial")));
+    try {
+      reader.read(xml, new PolicyXmlReader.RecordHandler() {
+        @Override
+        public void record(Map<String, String> fields) {
+          // empty elements are missing values, as on the configuration page
+          licenses.add(new License(StringUtils.trimToNull(fields.get("id")), StringUtils.trimToNull(fields.get("title")),
+            StringUtils.trimToNull(fields.get("description")), StringUtils.trimToNull(fields.get("url")),
+            parseSourceType(fields.get("sourceType")), parseBoolean(fields.get("commercial"))));
+        }
+      });
+    }
+    catch (XMLStreamException e) {
+      throw new IllegalStateException("Failure parsing XML for licenses", e);
+    }
+    return licenses;
+  }
+
+  static SourceType parseSourceType(String value) {
+    if (StringUtils.isEmpty(value)) {
+      return null;
+    }
     try {
-      Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-      Licenses licenses = (Licenses) unmarshaller.unmarshal(new StringReader(xml));
-      return licenses.licenses;
+      return SourceType.valueOf(value);
     }
-    catch (JAXBException e) {
-      throw new SonarException("Failure parsing XML for allowed dependencies", e);
+    catch (IllegalArgumentException e) {
+      return null;
     }
   }
+
+  static boolean parseBoolean(String value) {
+    return "true".equals(value) || "1".equals(value);
+  }
 }
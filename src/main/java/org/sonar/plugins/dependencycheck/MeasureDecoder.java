@@ -0,0 +1,176 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import static org.sonar.plugins.dependencycheck.MeasureEncoder.FORMAT_VERSION;
+import static org.sonar.plugins.dependencycheck.MeasureEncoder.LENGTH_SEPARATOR;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Decodes the data of the dependency and license measures written by the {@link MeasureEncoder}. Data of older
+ * snapshots is read by the {@link LegacyMeasureDecoder}.
+ */
+public final class MeasureDecoder {
+
+  /**
+   * Orders encoded entries by their fields, i.e. dependency entries by key first. The encoded form itself starts with
+   * the length of the entry, so it does not sort by key.
+   */
+  public static final Comparator<String> ENTRY_ORDER = new Comparator<String>() {
+    public int compare(String entry1, String entry2) {
+      return compareEntries(entry1, entry2);
+    }
+  };
+
+  private MeasureDecoder() {
+  }
+
+  /**
+   * @param data the measure data, may be null
+   * @return true if the data is not empty and not in the current format
+   */
+  public static boolean isLegacy(String data) {
+    return data != null && data.length() > 0 && !data.startsWith(FORMAT_VERSION);
+  }
+
+  /**
+   * Tokenizes the measure data into its entries. The entries stay encoded so they can be stored again as they are.
+   *
+   * @param data the measure data in the current format, may be null
+   * @return the encoded entries
+   * @throws IllegalArgumentException if the data is not in the current format
+   */
+  public static List<String> entries(String data) {
+    if (data == null || data.length() == 0) {
+      return Collections.emptyList();
+    }
+    if (!data.startsWith(FORMAT_VERSION)) {
+      throw new IllegalArgumentException("Measure data is not in format " + FORMAT_VERSION);
+    }
+
+    List<String> entries = new ArrayList<String>();
+    int start = FORMAT_VERSION.length();
+    while (start < data.length()) {
+      int end = skip(data, start, data.length());
+      entries.add(data.substring(start, end));
+      start = end;
+    }
+    return entries;
+  }
+
+  /**
+   * Tokenizes an entry into its fields.
+   *
+   * @param entry the encoded entry
+   * @return the fields
+   * @throws IllegalArgumentException if the entry is not valid
+   */
+  public static List<String> fields(String entry) {
+    List<String> fields = new ArrayList<String>(6);
+    if (skip(entry, 0, entry.length()) != entry.length()) {
+      throw new IllegalArgumentException("Invalid entry length in measure data");
+    }
+    int start = entry.indexOf(LENGTH_SEPARATOR) + 1;
+    while (start < entry.length()) {
+      int end = skip(entry, start, entry.length());
+      fields.add(entry.substring(entry.indexOf(LENGTH_SEPARATOR, start) + 1, end));
+      start = end;
+    }
+    return fields;
+  }
+
+  /**
+   * Compares the fields of two entries without decoding them. Entries without a valid length prefix are compared as
+   * they are.
+   */
+  static int compareEntries(String entry1, String entry2) {
+    int start1 = entry1.indexOf(LENGTH_SEPARATOR) + 1;
+    int start2 = entry2.indexOf(LENGTH_SEPARATOR) + 1;
+    while (start1 > 0 && start2 > 0 && start1 < entry1.length() && start2 < entry2.length()) {
+      int separator1 = entry1.indexOf(LENGTH_SEPARATOR, start1);
+      int separator2 = entry2.indexOf(LENGTH_SEPARATOR, start2);
+      int length1 = separator1 > 0 ? length(entry1, start1, separator1) : -1;
+      int length2 = separator2 > 0 ? length(entry2, start2, separator2) : -1;
+      if (length1 < 0 || length2 < 0 || separator1 + 1 + length1 > entry1.length() || separator2 + 1 + length2 > entry2.length()) {
+        return entry1.compareTo(entry2);
+      }
+      int result = compareRegions(entry1, separator1 + 1, length1, entry2, separator2 + 1, length2);
+      if (result != 0) {
+        return result;
+      }
+      start1 = separator1 + 1 + length1;
+      start2 = separator2 + 1 + length2;
+    }
+    if (start1 <= 0 || start2 <= 0) {
+      return entry1.compareTo(entry2);
+    }
+    // the entry with less fields first
+    return (start1 < entry1.length() ? 1 : 0) - (start2 < entry2.length() ? 1 : 0);
+  }
+
+  private static int length(String data, int start, int end) {
+    if (end == start || end - start > 9) {
+      return -1;
+    }
+    int length = 0;
+    for (int i = start; i < end; i++) {
+      char c = data.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      length = length * 10 + (c - '0');
+    }
+    return length;
+  }
+
+  private static int compareRegions(String data1, int start1, int length1, String data2, int start2, int length2) {
+    int length = Math.min(length1, length2);
+    for (int i = 0; i < length; i++) {
+      char c1 = data1.charAt(start1 + i);
+      char c2 = data2.charAt(start2 + i);
+      if (c1 != c2) {
+        return c1 - c2;
+      }
+    }
+    return length1 - length2;
+  }
+
+  /**
+   * @return the end of the length-prefixed value starting at start
+   */
+  private static int skip(String data, int start, int limit) {
+    int length = 0;
+    int i = start;
+    for (; i < limit && data.charAt(i) != LENGTH_SEPARATOR; i++) {
+      char c = data.charAt(i);
+      if (c < '0' || c > '9' || i - start > 9) {
+        throw new IllegalArgumentException("Invalid length at " + i + " in measure data");
+      }
+      length = length * 10 + (c - '0');
+    }
+    int end = i + 1 + length;
+    if (i == start || i >= limit || end > limit) {
+      throw new IllegalArgumentException("Invalid length at " + start + " in measure data");
+    }
+    return end;
+  }
+}
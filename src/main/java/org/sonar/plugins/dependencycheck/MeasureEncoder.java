@@ -0,0 +1,139 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.util.Collection;
+
+/**
+ * Encodes the data of the dependency and license measures. The data starts with the format version, followed by the
+ * entries. Each entry and each field of an entry is prefixed by its length and a colon, so fields can contain any
+ * character and are read without scanning for separators.
+ * <p>
+ * Dependency entries are key, version, scope, license id, status and allowed version range (only for wrong versions).
+ * License entries are id, number of used libraries, source type and commercial flag. The titles are resolved from
+ * the license catalogue when the measure is displayed.
+ *
+ * @see MeasureDecoder
+ */
+public final class MeasureEncoder {
+
+  /**
+   * The prefix of measure data in the current format.
+   */
+  public static final String FORMAT_VERSION = "#2|";
+
+  static final char LENGTH_SEPARATOR = ':';
+
+  static final int DEPENDENCY_KEY = 0;
+  static final int DEPENDENCY_VERSION = 1;
+  static final int DEPENDENCY_SCOPE = 2;
+  static final int DEPENDENCY_LICENSE_ID = 3;
+  static final int DEPENDENCY_STATUS = 4;
+  static final int DEPENDENCY_ALLOWED_RANGE = 5;
+
+  static final int LICENSE_ID = 0;
+  static final int LICENSE_LIBRARIES = 1;
+  static final int LICENSE_SOURCE_TYPE = 2;
+  static final int LICENSE_COMMERCIAL = 3;
+
+  private MeasureEncoder() {
+  }
+
+  /**
+   * Encodes a dependency entry.
+   *
+   * @param key the key of the library
+   * @param version the version of the library
+   * @param scope the scope of the library
+   * @param licenseId the id of the license, empty if unknown
+   * @param status the status (OK, UNLISTED, WRONG_VERSION)
+   * @param allowedRange the allowed version range, empty if the version is allowed
+   * @return the encoded entry
+   */
+  public static String dependencyEntry(String key, String version, String scope, String licenseId, String status, String allowedRange) {
+    return entry(key, version, scope, licenseId, status, allowedRange);
+  }
+
+  /**
+   * Encodes a license entry.
+   *
+   * @param id the id of the license
+   * @param libraries the number of libraries under the license
+   * @param sourceType the source type of the license, may be null
+   * @param commercial whether the license is commercial
+   * @return the encoded entry
+   */
+  public static String licenseEntry(String id, int libraries, SourceType sourceType, boolean commercial) {
+    return entry(id, String.valueOf(libraries), sourceType != null ? sourceType.name() : "", String.valueOf(commercial));
+  }
+
+  /**
+   * Encodes the fields of a single entry, null fields are encoded as empty fields.
+   *
+   * @param fields the fields
+   * @return the encoded entry
+   */
+  public static String entry(String... fields) {
+    int bodyLength = 0;
+    for (String field : fields) {
+      bodyLength += digits(length(field)) + 1 + length(field);
+    }
+
+    StringBuilder entry = new StringBuilder(digits(bodyLength) + 1 + bodyLength);
+    entry.append(bodyLength).append(LENGTH_SEPARATOR);
+    for (String field : fields) {
+      entry.append(length(field)).append(LENGTH_SEPARATOR);
+      if (field != null) {
+        entry.append(field);
+      }
+    }
+    return entry.toString();
+  }
+
+  /**
+   * Concatenates encoded entries into the measure data.
+   *
+   * @param entries the entries, as created by {@link #entry(String...)}
+   * @return the measure data
+   */
+  public static String encode(Collection<String> entries) {
+    int length = FORMAT_VERSION.length();
+    for (String entry : entries) {
+      length += entry.length();
+    }
+
+    StringBuilder data = new StringBuilder(length);
+    data.append(FORMAT_VERSION);
+    for (String entry : entries) {
+      data.append(entry);
+    }
+    return data.toString();
+  }
+
+  private static int length(String field) {
+    return field != null ? field.length() : 0;
+  }
+
+  private static int digits(int value) {
+    int digits = 1;
+    for (int rest = value / 10; rest > 0; rest /= 10) {
+      digits++;
+    }
+    return digits;
+  }
+}
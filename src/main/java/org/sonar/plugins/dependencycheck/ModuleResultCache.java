@@ -0,0 +1,147 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.io.FileUtils;
+import org.picocontainer.Startable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.BatchExtension;
+import org.sonar.api.batch.InstantiationStrategy;
+import org.sonar.api.batch.bootstrap.ProjectReactor;
+
+/**
+ * The checked dependencies of the modules in the previous analysis, stored in the working directory of the root
+ * project with the fingerprint of the dependencies and the policy they were checked with. A module with an unchanged
+ * fingerprint reuses its previous result.
+ * <p>
+ * Only the modules of the current analysis are written back when the analysis ends, removed modules are dropped.
+ */
+@InstantiationStrategy(InstantiationStrategy.PER_BATCH)
+public class ModuleResultCache implements BatchExtension, Startable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ModuleResultCache.class);
+
+  static final String FILE_NAME = "dependencycheck/modules.dat";
+  private static final String ENCODING = "UTF-8";
+
+  private final File file;
+  private Map<String, String[]> previous;
+  private final Map<String, String[]> current = new TreeMap<String, String[]>();
+  private boolean dirty;
+
+  /**
+   * @param reactor the projects of the analysis, the cache is stored in the working directory of the root
+   */
+  public ModuleResultCache(ProjectReactor reactor) {
+    this(new File(reactor.getRoot().getWorkDir(), FILE_NAME));
+  }
+
+  ModuleResultCache(File file) {
+    this.file = file;
+  }
+
+  /**
+   * @param moduleKey the key of the module
+   * @param fingerprint the fingerprint of the dependencies of the module and the policy
+   * @return the encoded dependency entries of the previous analysis or null if the fingerprint has changed
+   */
+  public synchronized List<String> get(String moduleKey, String fingerprint) {
+    String[] result = loaded().get(moduleKey);
+    if (result == null || !result[0].equals(fingerprint)) {
+      return null;
+    }
+    current.put(moduleKey, result);
+    return MeasureDecoder.entries(result[1]);
+  }
+
+  /**
+   * @param moduleKey the key of the module
+   * @param fingerprint the fingerprint of the dependencies of the module and the policy
+   * @param entries the encoded dependency entries of the module
+   */
+  public synchronized void put(String moduleKey, String fingerprint, List<String> entries) {
+    current.put(moduleKey, new String[] {fingerprint, MeasureEncoder.encode(entries)});
+    dirty = true;
+  }
+
+  private Map<String, String[]> loaded() {
+    if (previous == null) {
+      previous = new HashMap<String, String[]>();
+      if (file.isFile()) {
+        load();
+      }
+    }
+    return previous;
+  }
+
+  private void load() {
+    try {
+      for (String entry : MeasureDecoder.entries(FileUtils.readFileToString(file, ENCODING))) {
+        List<String> fields = MeasureDecoder.fields(entry);
+        previous.put(fields.get(0), new String[] {fields.get(1), fields.get(2)});
+      }
+      LOGGER.debug("Loaded previous results of {} modules", previous.size());
+    }
+    catch (IOException e) {
+      LOGGER.warn("Previous module results could not be read, checking all modules: {}", e.getMessage());
+      previous.clear();
+    }
+    catch (RuntimeException e) {
+      LOGGER.warn("Previous module results are invalid, checking all modules: {}", e.getMessage());
+      previous.clear();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void start() {
+    // loaded on first use
+  }
+
+  /**
+   * Writes the results of the modules of this analysis if they differ from the previous ones.
+   */
+  public synchronized void stop() {
+    if (current.isEmpty() || (!dirty && current.size() == loaded().size())) {
+      return;
+    }
+    List<String> entries = new ArrayList<String>(current.size());
+    for (Map.Entry<String, String[]> result : current.entrySet()) {
+      entries.add(MeasureEncoder.entry(result.getKey(), result.getValue()[0], result.getValue()[1]));
+    }
+    try {
+      File tmp = new File(file.getPath() + ".tmp");
+      FileUtils.writeStringToFile(tmp, MeasureEncoder.encode(entries), ENCODING);
+      FileUtils.deleteQuietly(file);
+      FileUtils.moveFile(tmp, file);
+      dirty = false;
+    }
+    catch (IOException e) {
+      LOGGER.warn("Module results could not be written: {}", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.util.List;
+
+/**
+ * The result of a change by the {@link PolicyStore}: the new property values to save or the reason the change was
+ * rejected. The change is saved by {@link PolicyStore#save(PolicyChange, PolicyStore.PropertyWriter)}.
+ */
+public final class PolicyChange {
+
+  private final String error;
+  private final String previousVersion;
+  private final String globalXml;
+  private final String licenseXml;
+  private final List<AllowedDependency> dependencies;
+  private final List<License> licenses;
+  private final String compiledPolicy;
+  private final String version;
+
+  private PolicyChange(String error, String previousVersion, String globalXml, String licenseXml,
+      List<AllowedDependency> dependencies, List<License> licenses, String compiledPolicy, String version) {
+    this.error = error;
+    this.previousVersion = previousVersion;
+    this.globalXml = globalXml;
+    this.licenseXml = licenseXml;
+    this.dependencies = dependencies;
+    this.licenses = licenses;
+    this.compiledPolicy = compiledPolicy;
+    this.version = version;
+  }
+
+  static PolicyChange rejected(String error) {
+    return new PolicyChange(error, null, null, null, null, null, null, null);
+  }
+
+  static PolicyChange saved(String previousVersion, String globalXml, String licenseXml, List<AllowedDependency> dependencies,
+      List<License> licenses, String compiledPolicy, String version) {
+    return new PolicyChange(null, previousVersion, globalXml, licenseXml, dependencies, licenses, compiledPolicy, version);
+  }
+
+  /**
+   * @return true if nothing has been changed
+   */
+  public boolean isRejected() {
+    return error != null;
+  }
+
+  /**
+   * @return the reason the change was rejected
+   */
+  public String getError() {
+    return error;
+  }
+
+  /**
+   * @return the new global allowed dependencies or null if they have not been changed
+   */
+  public String getGlobalXml() {
+    return globalXml;
+  }
+
+  /**
+   * @return the new licenses or null if they have not been changed
+   */
+  public String getLicenseXml() {
+    return licenseXml;
+  }
+
+  /**
+   * @return the parsed new global allowed dependencies or null if they have not been changed
+   */
+  public List<AllowedDependency> getDependencies() {
+    return dependencies;
+  }
+
+  /**
+   * @return the parsed new licenses or null if they have not been changed
+   */
+  public List<License> getLicenses() {
+    return licenses;
+  }
+
+  /**
+   * @return the version of the configuration the change was made to
+   */
+  String getPreviousVersion() {
+    return previousVersion;
+  }
+
+  /**
+   * @return the new {@link CompiledPolicy} artifact
+   */
+  public String getCompiledPolicy() {
+    return compiledPolicy;
+  }
+
+  /**
+   * @return the version of the configuration after the change, the {@link CompiledPolicy#getSourceHash() source hash}
+   *         of the compiled policy
+   */
+  public String getVersion() {
+    return version;
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.sonar.api.ServerExtension;
+
+/**
+ * Compiles the global allowed dependencies and licenses when the {@link PolicyStore} changes them. The configuration
+ * page stores the {@link CompiledPolicy} artifact in a hidden property, so it is sent to the analyses with the other
+ * settings.
+ */
+public class PolicyCompiler implements ServerExtension {
+
+  /**
+   * Compiles the global allowed dependencies and licenses. Invalid version ranges are reported while the XML is
+   * parsed.
+   *
+   * @param globalXml the global allowed dependencies
+   * @param licenseXml the licenses
+   * @return the compiled artifact
+   */
+  public String compile(String globalXml, String licenseXml) {
+    return CompiledPolicy.compile(globalXml, licenseXml);
+  }
+
+  /**
+   * Compiles the global allowed dependencies and licenses the {@link PolicyStore} holds, without parsing the XML again.
+   *
+   * @param sourceHash the hash of the XML, see {@link CompiledPolicy#sourceHash(String, String)}
+   * @param dependencies the allowed dependencies of the XML
+   * @param licenses the licenses of the XML
+   * @return the compiled artifact
+   */
+  public String compile(String sourceHash, List<AllowedDependency> dependencies, Collection<License> licenses) {
+    return CompiledPolicy.compile(sourceHash, dependencies, licenses);
+  }
+}
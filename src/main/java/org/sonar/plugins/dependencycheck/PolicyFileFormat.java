@@ -0,0 +1,394 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.commons.lang.StringEscapeUtils;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.ServerExtension;
+
+/**
+ * Reads and writes files of global allowed dependencies for the bulk import and export of the configuration page.
+ * The configuration page hands an uploaded file over as one string, it is parsed and validated in a single pass. The
+ * export page writes each row as soon as it is formatted.
+ */
+public class PolicyFileFormat implements ServerExtension {
+
+  /**
+   * Comma separated values (key, version range, license id), an optional header line.
+   */
+  public static final String CSV = "csv";
+  /**
+   * The XML of the allowed dependencies property.
+   */
+  public static final String XML = "xml";
+  /**
+   * One JSON object per line with the fields key, versionRange and licenseId.
+   */
+  public static final String JSON_LINES = "jsonl";
+
+  static final String[] COLUMNS = {"key", "versionRange", "licenseId"};
+
+  /**
+   * At most this many errors are reported, the remaining ones are counted.
+   */
+  static final int MAX_ERRORS = 100;
+
+  /**
+   * @param format the format
+   * @return true if the format is supported
+   */
+  public boolean isSupported(String format) {
+    return CSV.equals(format) || XML.equals(format) || JSON_LINES.equals(format);
+  }
+
+  /**
+   * @param format the format
+   * @return the content type of the format
+   */
+  public String getContentType(String format) {
+    if (XML.equals(format)) {
+      return "application/xml; charset=utf-8";
+    }
+    return JSON_LINES.equals(format) ? "application/x-ndjson; charset=utf-8" : "text/csv; charset=utf-8";
+  }
+
+  /**
+   * @param format the format
+   * @return the start of the file
+   */
+  public String header(String format) {
+    if (XML.equals(format)) {
+      return "<allowed-dependencies>\n";
+    }
+    return JSON_LINES.equals(format) ? "" : DependencyReportFormat.csvLine(COLUMNS);
+  }
+
+  /**
+   * @param format the format
+   * @param dependency the allowed dependency
+   * @return the formatted line (incl. line break)
+   */
+  public String row(String format, AllowedDependency dependency) {
+    String[] fields = {dependency.getKey(), dependency.getVersionRange(), dependency.getLicenseId()};
+    if (XML.equals(format)) {
+      StringBuilder line = new StringBuilder("  <dependency>");
+      for (int i = 0; i < fields.length; i++) {
+        if (fields[i] != null) {
+          line.append('<').append(COLUMNS[i]).append('>').append(StringEscapeUtils.escapeXml(fields[i]))
+              .append("</").append(COLUMNS[i]).append('>');
+        }
+      }
+      return line.append("</dependency>\n").toString();
+    }
+    return JSON_LINES.equals(format) ? DependencyReportFormat.jsonLine(COLUMNS, fields) : DependencyReportFormat.csvLine(fields);
+  }
+
+  /**
+   * @param format the format
+   * @return the end of the file
+   */
+  public String footer(String format) {
+    return XML.equals(format) ? "</allowed-dependencies>\n" : "";
+  }
+
+  /**
+   * Reads and validates a file of allowed dependencies. The key is required, the version range has to be valid and
+   * the license has to exist.
+   *
+   * @param format the format
+   * @param in the file
+   * @param licenseIds the ids of the existing licenses
+   * @param errors the errors of the file are added with their line (for XML their entry) number
+   * @return the allowed dependencies of the file, incomplete if there are errors
+   */
+  static List<AllowedDependency> read(String format, Reader in, Set<String> licenseIds, List<String> errors) {
+    ErrorList errorList = new ErrorList(errors);
+    List<AllowedDependency> dependencies = new ArrayList<AllowedDependency>();
+    try {
+      if (XML.equals(format)) {
+        readXml(in, licenseIds, dependencies, errorList);
+      }
+      else {
+        readLines(format, in, licenseIds, dependencies, errorList);
+      }
+    }
+    catch (IOException e) {
+      errorList.add("The file could not be read: " + e.getMessage());
+    }
+    errorList.finish();
+    return dependencies;
+  }
+
+  private static void readXml(Reader in, final Set<String> licenseIds, final List<AllowedDependency> dependencies, final ErrorList errors) {
+    PolicyXmlReader reader = new PolicyXmlReader("dependency", Collections.<String>emptySet(), Collections.<String>emptySet());
+    try {
+      reader.read(in, new PolicyXmlReader.RecordHandler() {
+        @Override
+        public void record(Map<String, String> fields) {
+          add("Dependency " + (dependencies.size() + errors.count + 1), fields.get(COLUMNS[0]), fields.get(COLUMNS[1]),
+              fields.get(COLUMNS[2]), licenseIds, dependencies, errors);
+        }
+      });
+    }
+    catch (XMLStreamException e) {
+      errors.add("The file is not valid XML: " + e.getMessage());
+    }
+  }
+
+  private static void readLines(String format, Reader in, Set<String> licenseIds, List<AllowedDependency> dependencies, ErrorList errors)
+      throws IOException {
+    BufferedReader lines = new BufferedReader(in);
+    String line;
+    int number = 0;
+    while ((line = lines.readLine()) != null) {
+      number++;
+      if (StringUtils.isBlank(line)) {
+        continue;
+      }
+      String[] fields;
+      try {
+        fields = JSON_LINES.equals(format) ? jsonFields(line) : csvFields(line);
+      }
+      catch (IllegalArgumentException e) {
+        errors.add("Line " + number + ": " + e.getMessage());
+        continue;
+      }
+      if (number == 1 && CSV.equals(format) && COLUMNS[0].equals(fields[0])) {
+        continue;
+      }
+      add("Line " + number, fields[0], fields[1], fields[2], licenseIds, dependencies, errors);
+    }
+  }
+
+  private static void add(String position, String key, String versionRange, String licenseId, Set<String> licenseIds,
+      List<AllowedDependency> dependencies, ErrorList errors) {
+    AllowedDependency dependency = new AllowedDependency(StringUtils.trimToNull(key), StringUtils.trimToNull(versionRange),
+        StringUtils.trimToNull(licenseId), null);
+    if (dependency.getKey() == null) {
+      errors.add(position + ": The key of the dependency is missing.");
+    }
+    else if (dependency.getParsedVersionRange() == null) {
+      errors.add(position + ": Invalid version range '" + dependency.getVersionRange() + "'.");
+    }
+    else if (dependency.getLicenseId() != null && !licenseIds.contains(dependency.getLicenseId())) {
+      errors.add(position + ": License '" + dependency.getLicenseId() + "' does not exist.");
+    }
+    else {
+      dependencies.add(dependency);
+    }
+  }
+
+  /**
+   * Splits a CSV line, fields may be quoted with double quotes (doubled inside the field).
+   */
+  static String[] csvFields(String line) {
+    String[] fields = new String[COLUMNS.length];
+    int column = 0;
+    int i = 0;
+    while (i <= line.length() && column < fields.length) {
+      StringBuilder field = new StringBuilder();
+      if (i < line.length() && line.charAt(i) == '"') {
+        i++;
+        while (true) {
+          if (i >= line.length()) {
+            throw new IllegalArgumentException("Unterminated quoted field.");
+          }
+          char c = line.charAt(i++);
+          if (c == '"') {
+            if (i < line.length() && line.charAt(i) == '"') {
+              i++;
+            }
+            else {
+              break;
+            }
+          }
+          field.append(c);
+        }
+      }
+      while (i < line.length() && line.charAt(i) != ',') {
+        field.append(line.charAt(i++));
+      }
+      fields[column++] = field.toString();
+      // skip the separator
+      i++;
+    }
+    return fields;
+  }
+
+  /**
+   * Reads the string fields of a flat JSON object.
+   */
+  static String[] jsonFields(String line) {
+    Map<String, String> values = new HashMap<String, String>();
+    JsonScanner scanner = new JsonScanner(line);
+    scanner.expect('{');
+    if (!scanner.skip('}')) {
+      do {
+        String name = scanner.string();
+        scanner.expect(':');
+        values.put(name, scanner.value());
+      }
+      while (scanner.skip(','));
+      scanner.expect('}');
+    }
+    scanner.end();
+
+    String[] fields = new String[COLUMNS.length];
+    for (int i = 0; i < COLUMNS.length; i++) {
+      fields[i] = values.get(COLUMNS[i]);
+    }
+    return fields;
+  }
+
+  /**
+   * Scanner for the tokens of a flat JSON object, with string, number, boolean or null values.
+   */
+  private static final class JsonScanner {
+    private final String text;
+    private int position;
+
+    private JsonScanner(String text) {
+      this.text = text;
+    }
+
+    private void whitespace() {
+      while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+        position++;
+      }
+    }
+
+    private boolean skip(char c) {
+      whitespace();
+      if (position < text.length() && text.charAt(position) == c) {
+        position++;
+        return true;
+      }
+      return false;
+    }
+
+    private void expect(char c) {
+      if (!skip(c)) {
+        throw new IllegalArgumentException("Invalid JSON, expected '" + c + "' at " + (position + 1) + ".");
+      }
+    }
+
+    private void end() {
+      whitespace();
+      if (position < text.length()) {
+        throw new IllegalArgumentException("Invalid JSON, unexpected text at " + (position + 1) + ".");
+      }
+    }
+
+    private String value() {
+      whitespace();
+      if (position < text.length() && text.charAt(position) == '"') {
+        return string();
+      }
+      int start = position;
+      while (position < text.length() && ",}".indexOf(text.charAt(position)) < 0) {
+        position++;
+      }
+      String literal = text.substring(start, position).trim();
+      if (literal.length() == 0) {
+        throw new IllegalArgumentException("Invalid JSON, missing value at " + (start + 1) + ".");
+      }
+      return "null".equals(literal) ? null : literal;
+    }
+
+    private String string() {
+      expect('"');
+      StringBuilder value = new StringBuilder();
+      while (position < text.length()) {
+        char c = text.charAt(position++);
+        if (c == '"') {
+          return value.toString();
+        }
+        if (c != '\\') {
+          value.append(c);
+        }
+        else if (position < text.length()) {
+          char escaped = text.charAt(position++);
+          switch (escaped) {
+            case 'n':
+              value.append('\n');
+              break;
+            case 'r':
+              value.append('\r');
+              break;
+            case 't':
+              value.append('\t');
+              break;
+            case 'b':
+              value.append('\b');
+              break;
+            case 'f':
+              value.append('\f');
+              break;
+            case 'u':
+              if (position + 4 > text.length()) {
+                throw new IllegalArgumentException("Invalid JSON, incomplete unicode escape.");
+              }
+              value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+              position += 4;
+              break;
+            default:
+              value.append(escaped);
+          }
+        }
+      }
+      throw new IllegalArgumentException("Invalid JSON, unterminated string.");
+    }
+  }
+
+  /**
+   * Keeps the first {@link #MAX_ERRORS} errors and counts the others.
+   */
+  private static final class ErrorList {
+    private final List<String> errors;
+    private int count;
+
+    private ErrorList(List<String> errors) {
+      this.errors = errors;
+    }
+
+    private void add(String error) {
+      if (count < MAX_ERRORS) {
+        errors.add(error);
+      }
+      count++;
+    }
+
+    private void finish() {
+      if (count > MAX_ERRORS) {
+        errors.add((count - MAX_ERRORS) + " more errors");
+      }
+    }
+  }
+}
@@ -0,0 +1,455 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
+import org.sonar.api.ServerExtension;
+import org.sonar.api.config.Settings;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
+
+/**
+ * Edits the global allowed dependencies and licenses for the configuration page.
+ * <p>
+ * The parsed configuration is kept with an index of the dependencies of each license, so a change does not parse the
+ * XML again and deleting a license does not scan the dependencies. The changed configuration is compiled from the
+ * parsed one. The settings are only parsed again if they differ from the XML of this store, i.e. if they have been
+ * changed elsewhere.
+ * <p>
+ * Each change is checked against the version the user has edited (the hash of the XML), so concurrent changes do not
+ * overwrite each other. The page passes the returned {@link PolicyChange} to {@link #save(PolicyChange, PropertyWriter)},
+ * which checks the version again, writes the properties and adopts the change under the lock of the store, so the
+ * store only adopts changes which have been saved and a change made concurrently to the same version is rejected.
+ * <p>
+ * The allowed dependencies are a single property, so every change writes all of them.
+ */
+public class PolicyStore implements ServerExtension {
+
+  /**
+   * Writes a property of a change, e.g. with Property.set of the configuration page.
+   */
+  public interface PropertyWriter {
+    void set(String key, String value);
+  }
+
+  private static final String CHANGED_MEANTIME = "The configuration has been changed in the meantime, please check the changes and try again.";
+
+  private final Settings settings;
+  private final PolicyCompiler compiler;
+  private boolean loaded;
+
+  private final List<AllowedDependency> dependencies = new ArrayList<AllowedDependency>();
+  private final Map<String, License> licenses = new LinkedHashMap<String, License>();
+  private final ListMultimap<String, AllowedDependency> dependents = ArrayListMultimap.create();
+  private String globalXml;
+  private String licenseXml;
+  private String version;
+
+  /**
+   * @param settings the server settings, containing the global allowed dependencies and licenses
+   * @param compiler compiles the changed configuration for the analyses
+   */
+  public PolicyStore(Settings settings, PolicyCompiler compiler) {
+    this.settings = settings;
+    this.compiler = compiler;
+  }
+
+  /**
+   * @return the version of the configuration, to be passed to the changes
+   */
+  public synchronized String getVersion() {
+    refresh();
+    return version;
+  }
+
+  /**
+   * @return the global allowed dependencies, in order of precedence
+   */
+  public synchronized List<AllowedDependency> getDependencies() {
+    refresh();
+    return ImmutableList.copyOf(dependencies);
+  }
+
+  /**
+   * @return the licenses, with descriptions
+   */
+  public synchronized List<License> getLicenses() {
+    refresh();
+    return ImmutableList.copyOf(licenses.values());
+  }
+
+  /**
+   * @param licenseId the id of a license
+   * @return the allowed dependencies with the license
+   */
+  public synchronized List<AllowedDependency> getDependents(String licenseId) {
+    refresh();
+    return ImmutableList.copyOf(dependents.get(licenseId));
+  }
+
+  /**
+   * Adds an allowed dependency after the existing ones.
+   *
+   * @param expectedVersion the version the user has edited
+   * @param key the key (prefix) of the dependency
+   * @param versionRange the allowed version range
+   * @param licenseId the id of the license
+   * @return the change
+   */
+  public synchronized PolicyChange addDependency(String expectedVersion, String key, String versionRange, String licenseId) {
+    return setDependency(expectedVersion, dependencies.size(), key, versionRange, licenseId, false);
+  }
+
+  /**
+   * Replaces an allowed dependency.
+   *
+   * @param expectedVersion the version the user has edited
+   * @param index the index of the dependency in {@link #getDependencies()}
+   * @param key the key (prefix) of the dependency
+   * @param versionRange the allowed version range
+   * @param licenseId the id of the license
+   * @return the change
+   */
+  public synchronized PolicyChange updateDependency(String expectedVersion, int index, String key, String versionRange, String licenseId) {
+    return setDependency(expectedVersion, index, key, versionRange, licenseId, true);
+  }
+
+  private PolicyChange setDependency(String expectedVersion, int index, String key, String versionRange, String licenseId,
+      boolean replace) {
+    String error = checkVersion(expectedVersion);
+    if (error == null && replace && (index < 0 || index >= dependencies.size())) {
+      error = "The dependency does not exist.";
+    }
+    if (error == null) {
+      error = validate(key, versionRange, licenseId);
+    }
+    if (error != null) {
+      return PolicyChange.rejected(error);
+    }
+
+    AllowedDependency dependency = new AllowedDependency(key.trim(), StringUtils.trimToNull(versionRange), StringUtils.trimToNull(licenseId),
+        null);
+    List<AllowedDependency> changed = new ArrayList<AllowedDependency>(dependencies);
+    if (replace) {
+      changed.set(index, dependency);
+    }
+    else {
+      changed.add(dependency);
+    }
+    return changedDependencies(changed);
+  }
+
+  /**
+   * @param expectedVersion the version the user has edited
+   * @param index the index of the dependency in {@link #getDependencies()}
+   * @return the change
+   */
+  public synchronized PolicyChange deleteDependency(String expectedVersion, int index) {
+    String error = checkVersion(expectedVersion);
+    if (error == null && (index < 0 || index >= dependencies.size())) {
+      error = "The dependency does not exist.";
+    }
+    if (error != null) {
+      return PolicyChange.rejected(error);
+    }
+
+    List<AllowedDependency> changed = new ArrayList<AllowedDependency>(dependencies);
+    changed.remove(index);
+    return changedDependencies(changed);
+  }
+
+  /**
+   * Replaces all allowed dependencies with the ones of an XML file. Nothing is changed if an entry is invalid.
+   *
+   * @param expectedVersion the version the user has edited
+   * @param xml the allowed dependencies
+   * @return the change
+   */
+  public synchronized PolicyChange importDependencies(String expectedVersion, String xml) {
+    return importDependencies(expectedVersion, PolicyFileFormat.XML, new StringReader(StringUtils.defaultString(xml)));
+  }
+
+  /**
+   * Replaces all allowed dependencies with the ones of a file, see {@link PolicyFileFormat}.
+   *
+   * @param expectedVersion the version the user has edited or null to replace the dependencies regardless of changes
+   *          (e.g. for an automated synchronization)
+   * @param format the format of the file
+   * @param content the file
+   * @return the change
+   */
+  public synchronized PolicyChange importDependencies(String expectedVersion, String format, String content) {
+    return importDependencies(expectedVersion, format, new StringReader(StringUtils.defaultString(content)));
+  }
+
+  /**
+   * Replaces all allowed dependencies with the ones of a file, see {@link PolicyFileFormat}. The file is validated
+   * while it is read and nothing is changed if any entry is invalid.
+   *
+   * @param expectedVersion the version the user has edited or null to replace the dependencies regardless of changes
+   * @param format the format of the file
+   * @param in the file
+   * @return the change, if rejected with one error per line
+   */
+  public synchronized PolicyChange importDependencies(String expectedVersion, String format, Reader in) {
+    String error = expectedVersion != null ? checkVersion(expectedVersion) : null;
+    if (error != null) {
+      return PolicyChange.rejected(error);
+    }
+    refresh();
+
+    List<String> errors = new ArrayList<String>();
+    List<AllowedDependency> imported = PolicyFileFormat.read(format, in, licenses.keySet(), errors);
+    if (!errors.isEmpty()) {
+      return PolicyChange.rejected(StringUtils.join(errors, '\n'));
+    }
+
+    return changedDependencies(imported);
+  }
+
+  private String validate(String key, String versionRange, String licenseId) {
+    if (StringUtils.isBlank(key)) {
+      return "The key of the dependency is missing.";
+    }
+    try {
+      Utilities.parseVersionRange(StringUtils.trimToNull(versionRange));
+    }
+    catch (InvalidVersionSpecificationException e) {
+      return "Invalid version range '" + versionRange.trim() + "'.";
+    }
+    if (StringUtils.isNotBlank(licenseId) && !licenses.containsKey(licenseId.trim())) {
+      return "License '" + licenseId + "' does not exist.";
+    }
+    return null;
+  }
+
+  /**
+   * Adds a license.
+   *
+   * @param expectedVersion the version the user has edited
+   * @param license the license
+   * @return the change
+   */
+  public synchronized PolicyChange addLicense(String expectedVersion, License license) {
+    return setLicense(expectedVersion, license, false);
+  }
+
+  /**
+   * Adds a license, with the values of the configuration page.
+   *
+   * @param expectedVersion the version the user has edited
+   * @param id the id
+   * @param title the title
+   * @param description the description
+   * @param url the URL of the license text
+   * @param sourceType the name of the {@link SourceType}
+   * @param commercial "true" if the license is commercial
+   * @return the change
+   */
+  public synchronized PolicyChange addLicense(String expectedVersion, String id, String title, String description, String url,
+      String sourceType, String commercial) {
+    return addLicense(expectedVersion, license(id, title, description, url, sourceType, commercial));
+  }
+
+  /**
+   * Replaces the license with the same id.
+   *
+   * @param expectedVersion the version the user has edited
+   * @param license the license
+   * @return the change
+   */
+  public synchronized PolicyChange updateLicense(String expectedVersion, License license) {
+    return setLicense(expectedVersion, license, true);
+  }
+
+  /**
+   * Replaces the license with the same id, with the values of the configuration page.
+   *
+   * @param expectedVersion the version the user has edited
+   * @param id the id
+   * @param title the title
+   * @param description the description
+   * @param url the URL of the license text
+   * @param sourceType the name of the {@link SourceType}
+   * @param commercial "true" if the license is commercial
+   * @return the change
+   */
+  public synchronized PolicyChange updateLicense(String expectedVersion, String id, String title, String description, String url,
+      String sourceType, String commercial) {
+    return updateLicense(expectedVersion, license(id, title, description, url, sourceType, commercial));
+  }
+
+  private static License license(String id, String title, String description, String url, String sourceType, String commercial) {
+    return new License(StringUtils.trimToNull(id), StringUtils.trimToNull(title), StringUtils.trimToNull(description),
+        StringUtils.trimToNull(url), Licenses.parseSourceType(sourceType), Licenses.parseBoolean(commercial));
+  }
+
+  private PolicyChange setLicense(String expectedVersion, License license, boolean replace) {
+    String error = checkVersion(expectedVersion);
+    if (error == null && license.getId() == null) {
+      error = "The id of the license is missing.";
+    }
+    if (error == null && replace != licenses.containsKey(license.getId())) {
+      error = replace ? "License '" + license.getId() + "' does not exist." : "License with id '" + license.getId() + "' already exists.";
+    }
+    if (error != null) {
+      return PolicyChange.rejected(error);
+    }
+
+    Map<String, License> changed = new LinkedHashMap<String, License>(licenses);
+    changed.put(license.getId(), license);
+    return changedLicenses(changed);
+  }
+
+  /**
+   * Deletes a license which is not used by any allowed dependency.
+   *
+   * @param expectedVersion the version the user has edited
+   * @param licenseId the id of the license
+   * @return the change
+   */
+  public synchronized PolicyChange deleteLicense(String expectedVersion, String licenseId) {
+    String error = checkVersion(expectedVersion);
+    if (error == null && dependents.containsKey(licenseId)) {
+      error = "License '" + licenseId + "' cannot be deleted because dependencies are using it.";
+    }
+    if (error != null) {
+      return PolicyChange.rejected(error);
+    }
+
+    Map<String, License> changed = new LinkedHashMap<String, License>(licenses);
+    changed.remove(licenseId);
+    return changedLicenses(changed);
+  }
+
+  private String checkVersion(String expectedVersion) {
+    refresh();
+    if (!version.equals(expectedVersion)) {
+      return CHANGED_MEANTIME;
+    }
+    return null;
+  }
+
+  private PolicyChange changedDependencies(List<AllowedDependency> changed) {
+    String newGlobalXml = PolicyXmlWriter.dependencies(changed);
+    String newVersion = CompiledPolicy.sourceHash(newGlobalXml, licenseXml);
+    return PolicyChange.saved(version, newGlobalXml, null, ImmutableList.copyOf(changed), null,
+        compiler.compile(newVersion, changed, licenses.values()), newVersion);
+  }
+
+  private PolicyChange changedLicenses(Map<String, License> changed) {
+    String newLicenseXml = PolicyXmlWriter.licenses(changed.values());
+    String newVersion = CompiledPolicy.sourceHash(globalXml, newLicenseXml);
+    return PolicyChange.saved(version, null, newLicenseXml, null, ImmutableList.copyOf(changed.values()),
+        compiler.compile(newVersion, dependencies, changed.values()), newVersion);
+  }
+
+  /**
+   * Saves a change: checks that the configuration has not been changed since the change was made, writes its
+   * properties and adopts it, so the settings are not parsed again. The compiled policy is written last. An analysis
+   * reading the properties in between, or after a failed write, finds a compiled policy of other XML and reads the
+   * XML (see {@link DependencyPolicyCache}).
+   *
+   * @param change a change of this store
+   * @param writer writes the properties
+   * @return the saved change or the reason it was rejected, the change is not adopted then
+   */
+  public synchronized PolicyChange save(PolicyChange change, PropertyWriter writer) {
+    if (change.isRejected()) {
+      return change;
+    }
+    refresh();
+    if (!version.equals(change.getPreviousVersion())) {
+      return PolicyChange.rejected(CHANGED_MEANTIME);
+    }
+    try {
+      if (change.getGlobalXml() != null) {
+        writer.set(DependencyCheckMetrics.LIBRARY_GLOBAL_PROPERTY, change.getGlobalXml());
+      }
+      if (change.getLicenseXml() != null) {
+        writer.set(DependencyCheckMetrics.LICENSE_PROPERTY, change.getLicenseXml());
+      }
+      writer.set(DependencyCheckMetrics.COMPILED_POLICY_PROPERTY, change.getCompiledPolicy());
+    }
+    catch (RuntimeException e) {
+      // the properties written so far are read by the next refresh
+      return PolicyChange.rejected("The configuration could not be saved: " + e.getMessage());
+    }
+    adopt(change);
+    return change;
+  }
+
+  private void adopt(PolicyChange change) {
+    if (change.getGlobalXml() != null) {
+      setDependencies(change.getDependencies());
+      globalXml = change.getGlobalXml();
+    }
+    if (change.getLicenseXml() != null) {
+      setLicenses(change.getLicenses());
+      licenseXml = change.getLicenseXml();
+    }
+    version = change.getVersion();
+  }
+
+  /**
+   * Loads the configuration again if the settings differ from the XML of this store, i.e. if they have been changed
+   * elsewhere. A change of this store is only adopted once it has been saved, see {@link #save(PolicyChange, PropertyWriter)}.
+   */
+  private void refresh() {
+    String newGlobalXml = settings.getString(DependencyCheckMetrics.LIBRARY_GLOBAL_PROPERTY);
+    String newLicenseXml = settings.getString(DependencyCheckMetrics.LICENSE_PROPERTY);
+    if (loaded && StringUtils.equals(newGlobalXml, globalXml) && StringUtils.equals(newLicenseXml, licenseXml)) {
+      return;
+    }
+
+    setLicenses(Licenses.loadFromXml(newLicenseXml, true));
+    setDependencies(AllowedDependencies.loadFromXml(newGlobalXml));
+    globalXml = newGlobalXml;
+    licenseXml = newLicenseXml;
+    version = CompiledPolicy.sourceHash(globalXml, licenseXml);
+    loaded = true;
+  }
+
+  private void setLicenses(List<License> newLicenses) {
+    licenses.clear();
+    for (License license : newLicenses) {
+      if (license.getId() != null) {
+        licenses.put(license.getId(), license);
+      }
+    }
+  }
+
+  private void setDependencies(List<AllowedDependency> newDependencies) {
+    dependencies.clear();
+    dependents.clear();
+    for (AllowedDependency dependency : newDependencies) {
+      dependencies.add(dependency);
+      dependents.put(dependency.getLicenseId(), dependency);
+    }
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Streaming (StAX) reader for the XML of the allowed dependencies and licenses. Both are a root element with a list of
+ * records, each record is a list of text elements. The value of a field is its text content, markup inside a field is
+ * ignored. Elements between the records are ignored.
+ */
+final class PolicyXmlReader {
+
+  private static final XMLInputFactory FACTORY = XMLInputFactory.newInstance();
+  static {
+    FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    FACTORY.setProperty(XMLInputFactory.IS_COALESCING, true);
+  }
+
+  /**
+   * Callback for each record.
+   */
+  interface RecordHandler {
+    void record(Map<String, String> fields);
+  }
+
+  private final String recordElement;
+  private final Set<String> skippedFields;
+  private final Set<String> internedFields;
+  private final Map<String, String> interned = new HashMap<String, String>();
+
+  /**
+   * @param recordElement name of the record elements
+   * @param skippedFields fields whose text is not needed and not read
+   * @param internedFields fields whose values repeat, equal values share one string
+   */
+  PolicyXmlReader(String recordElement, Set<String> skippedFields, Set<String> internedFields) {
+    this.recordElement = recordElement;
+    this.skippedFields = skippedFields;
+    this.internedFields = internedFields;
+  }
+
+  /**
+   * Reads the records of the XML.
+   *
+   * @param xml the XML string
+   * @param handler called for each record
+   * @throws XMLStreamException if the XML is not well-formed
+   */
+  void read(String xml, RecordHandler handler) throws XMLStreamException {
+    read(new StringReader(xml), handler);
+  }
+
+  /**
+   * Reads the records of streamed XML.
+   *
+   * @param xml the XML
+   * @param handler called for each record
+   * @throws XMLStreamException if the XML is not well-formed
+   */
+  void read(Reader xml, RecordHandler handler) throws XMLStreamException {
+    XMLStreamReader reader = FACTORY.createXMLStreamReader(xml);
+    try {
+      Map<String, String> fields = null;
+      int depth = 0;
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.END_ELEMENT) {
+          if (depth == 2 && fields != null) {
+            handler.record(fields);
+            fields = null;
+          }
+          depth--;
+        }
+        else if (event == XMLStreamConstants.START_ELEMENT) {
+          depth++;
+          String name = reader.getLocalName();
+          if (depth == 2 && recordElement.equals(name)) {
+            fields = new HashMap<String, String>();
+          }
+          else if (depth == 3 && fields != null) {
+            // consumes the end element of the field
+            readField(reader, name, fields);
+            depth--;
+          }
+        }
+      }
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  private void readField(XMLStreamReader reader, String name, Map<String, String> fields) throws XMLStreamException {
+    if (skippedFields.contains(name)) {
+      skipElement(reader);
+      return;
+    }
+    String value = readText(reader).trim();
+    if (internedFields.contains(name)) {
+      String existing = interned.get(value);
+      if (existing == null) {
+        interned.put(value, value);
+      }
+      else {
+        value = existing;
+      }
+    }
+    fields.put(name, value);
+  }
+
+  /**
+   * Reads the text content of the current element, including the text of nested elements.
+   */
+  private static String readText(XMLStreamReader reader) throws XMLStreamException {
+    StringBuilder text = new StringBuilder();
+    int depth = 1;
+    while (depth > 0) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+      }
+      else if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      }
+      else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+        || event == XMLStreamConstants.SPACE) {
+        text.append(reader.getText());
+      }
+    }
+    return text.toString();
+  }
+
+  private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+    int depth = 1;
+    while (depth > 0) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+      }
+      else if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      }
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.io.StringWriter;
+import java.util.Collection;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Streaming (StAX) writer for the XML of the allowed dependencies and licenses, in the format read by the
+ * {@link PolicyXmlReader}. Fields without value are left out.
+ */
+final class PolicyXmlWriter {
+
+  private static final XMLOutputFactory FACTORY = XMLOutputFactory.newInstance();
+
+  private PolicyXmlWriter() {
+  }
+
+  /**
+   * @param dependencies the allowed dependencies, in order of precedence
+   * @return the XML of the allowed dependencies
+   */
+  static String dependencies(Collection<AllowedDependency> dependencies) {
+    StringWriter buffer = new StringWriter();
+    try {
+      XMLStreamWriter writer = FACTORY.createXMLStreamWriter(buffer);
+      writer.writeStartElement("allowed-dependencies");
+      for (AllowedDependency dependency : dependencies) {
+        writer.writeStartElement("dependency");
+        field(writer, "key", dependency.getKey());
+        field(writer, "versionRange", dependency.getVersionRange());
+        field(writer, "licenseId", dependency.getLicenseId());
+        writer.writeEndElement();
+      }
+      writer.writeEndElement();
+      writer.close();
+    }
+    catch (XMLStreamException e) {
+      throw new IllegalStateException("Failure writing XML for allowed dependencies", e);
+    }
+    return buffer.toString();
+  }
+
+  /**
+   * @param licenses the licenses
+   * @return the XML of the licenses
+   */
+  static String licenses(Collection<License> licenses) {
+    StringWriter buffer = new StringWriter();
+    try {
+      XMLStreamWriter writer = FACTORY.createXMLStreamWriter(buffer);
+      writer.writeStartElement("licenses");
+      for (License license : licenses) {
+        writer.writeStartElement("license");
+        field(writer, "id", license.getId());
+        field(writer, "title", license.getTitle());
+        field(writer, "description", license.getDescription());
+        field(writer, "url", license.getUrl());
+        field(writer, "sourceType", license.getSourceType() != null ? license.getSourceType().name() : null);
+        field(writer, "commercial", String.valueOf(license.isCommercial()));
+        writer.writeEndElement();
+      }
+      writer.writeEndElement();
+      writer.close();
+    }
+    catch (XMLStreamException e) {
+      throw new IllegalStateException("Failure writing XML for licenses", e);
+    }
+    return buffer.toString();
+  }
+
+  private static void field(XMLStreamWriter writer, String name, String value) throws XMLStreamException {
+    if (value != null) {
+      writer.writeStartElement(name);
+      writer.writeCharacters(value);
+      writer.writeEndElement();
+    }
+  }
+}
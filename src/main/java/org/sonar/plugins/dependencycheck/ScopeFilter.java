@@ -0,0 +1,107 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.config.Settings;
+import org.sonar.api.design.Dependency;
+
+/**
+ * The maven scopes whose dependencies are checked, resolved once from the settings of a module.
+ */
+public final class ScopeFilter {
+  private static final Logger LOG = LoggerFactory.getLogger(ScopeFilter.class);
+
+  private final Set<DependencyScope> scopes;
+
+  /**
+   * @param scopes the scopes to check
+   */
+  public ScopeFilter(Collection<DependencyScope> scopes) {
+    this.scopes = scopes.isEmpty() ? EnumSet.noneOf(DependencyScope.class) : EnumSet.copyOf(scopes);
+  }
+
+  /**
+   * Resolves the scopes to check from the settings.
+   *
+   * @param settings the settings of the module
+   * @return the filter
+   */
+  public static ScopeFilter fromSettings(Settings settings) {
+    Set<DependencyScope> scopes = EnumSet.noneOf(DependencyScope.class);
+
+    if (settings.getBoolean(DependencyCheckMetrics.SCOPE_COMPILE_PROPERTY)) {
+      scopes.add(DependencyScope.COMPILE);
+    }
+    if (settings.getBoolean(DependencyCheckMetrics.SCOPE_RUNTIME_PROPERTY)) {
+      scopes.add(DependencyScope.RUNTIME);
+    }
+    if (settings.getBoolean(DependencyCheckMetrics.SCOPE_TEST_PROPERTY)) {
+      scopes.add(DependencyScope.TEST);
+    }
+    if (settings.getBoolean(DependencyCheckMetrics.SCOPE_PROVIDED_PROPERTY)) {
+      scopes.add(DependencyScope.PROVIDED);
+    }
+    for (String name : settings.getStringArray(DependencyCheckMetrics.SCOPE_ADDITIONAL_PROPERTY)) {
+      DependencyScope scope = DependencyScope.fromUsage(name);
+      if (scope != null) {
+        scopes.add(scope);
+      }
+      else {
+        LOG.warn("Unknown scope '{}' in {}", name, DependencyCheckMetrics.SCOPE_ADDITIONAL_PROPERTY);
+      }
+    }
+
+    return new ScopeFilter(scopes);
+  }
+
+  /**
+   * checks if the maven scope of the dependency is checked
+   *
+   * @param d - checked Dependency
+   * @return true if the maven scope of d is checked
+   */
+  public boolean accepts(Dependency d) {
+    DependencyScope scope = DependencyScope.fromUsage(d.getUsage());
+    return scope != null && scopes.contains(scope);
+  }
+
+  public Set<DependencyScope> getScopes() {
+    return scopes;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj instanceof ScopeFilter && scopes.equals(((ScopeFilter) obj).scopes);
+  }
+
+  @Override
+  public int hashCode() {
+    return scopes.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return scopes.toString();
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.google.common.collect.Ordering;
+
+/**
+ * Merges sorted, duplicate free lists (runs) into one sorted, duplicate free list.
+ */
+public final class SortedRuns {
+
+  private SortedRuns() {
+  }
+
+  /**
+   * K-way merge of sorted runs, elements contained in more than one run are kept once.
+   *
+   * @param runs the sorted runs
+   * @param <T> type of the elements
+   * @return the merged run
+   */
+  public static <T extends Comparable<? super T>> List<T> merge(Collection<? extends List<T>> runs) {
+    return merge(runs, Ordering.<T>natural());
+  }
+
+  /**
+   * K-way merge of runs sorted by a comparator, elements equal to an element of another run are kept once.
+   *
+   * @param runs the sorted runs
+   * @param comparator the order of the runs
+   * @param <T> type of the elements
+   * @return the merged run
+   */
+  public static <T> List<T> merge(Collection<? extends List<T>> runs, Comparator<? super T> comparator) {
+    int size = 0;
+    PriorityQueue<Cursor<T>> queue = new PriorityQueue<Cursor<T>>(Math.max(1, runs.size()));
+    for (List<T> run : runs) {
+      size += run.size();
+      Iterator<T> iterator = run.iterator();
+      if (iterator.hasNext()) {
+        queue.add(new Cursor<T>(iterator, comparator));
+      }
+    }
+
+    List<T> merged = new ArrayList<T>(size);
+    while (!queue.isEmpty()) {
+      Cursor<T> cursor = queue.poll();
+      if (merged.isEmpty() || comparator.compare(merged.get(merged.size() - 1), cursor.current) != 0) {
+        merged.add(cursor.current);
+      }
+      if (cursor.next()) {
+        queue.add(cursor);
+      }
+    }
+    return merged;
+  }
+
+  private static final class Cursor<T> implements Comparable<Cursor<T>> {
+    private final Iterator<T> iterator;
+    private final Comparator<? super T> comparator;
+    private T current;
+
+    private Cursor(Iterator<T> iterator, Comparator<? super T> comparator) {
+      this.iterator = iterator;
+      this.comparator = comparator;
+      this.current = iterator.next();
+    }
+
+    private boolean next() {
+      if (iterator.hasNext()) {
+        current = iterator.next();
+        return true;
+      }
+      return false;
+    }
+
+    public int compareTo(Cursor<T> other) {
+      return comparator.compare(current, other.current);
+    }
+  }
+}
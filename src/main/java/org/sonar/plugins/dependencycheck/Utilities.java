@@ -18,9 +18,9 @@
 package org.sonar.plugins.dependencycheck;
 
 import java.util.List;
-import java.util.SortedSet;
 
 import org.apache.commons.lang.StringUtils;
+import org.apache.maven.artifact.versioning.ArtifactVersion;
 import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
 import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
 import org.apache.maven.artifact.versioning.VersionRange;
@@ -28,15 +28,31 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.design.Dependency;
 import org.sonar.api.resources.Project;
-import org.sonar.api.resources.Resource;
 import org.sonar.api.resources.ResourceUtils;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+
 /**
  * This class has different functions needed in various other classes.
  */
 public final class Utilities {
   private static final Logger LOG = LoggerFactory.getLogger(Utilities.class);
   private static final License NO_LICENSE = new License("", "No License found", "", "", SourceType.CLOSED, false);
+  private static final int MAX_CACHED_VERSIONS = 10000;
+
+  /**
+   * Parsed versions - the same library versions show up in every module of a reactor.
+   */
+  private static final Cache<String, ArtifactVersion> ARTIFACT_VERSIONS = CacheBuilder.newBuilder()
+      .maximumSize(MAX_CACHED_VERSIONS)
+      .build(new CacheLoader<String, ArtifactVersion>() {
+        @Override
+        public ArtifactVersion load(String version) {
+          return new DefaultArtifactVersion(version);
+        }
+      });
 
   private Utilities() {
   }
@@ -70,9 +86,7 @@ public final class Utilities {
    */
   static boolean versionAllowed(String versionUsed, String versionRange) {
     try {
-      versionRange = StringUtils.isEmpty(versionRange) ? "0" : versionRange;
-      VersionRange versionSpec = VersionRange.createFromVersionSpec(versionRange);
-      return versionSpec.containsVersion(new DefaultArtifactVersion(versionUsed));
+      return versionAllowed(versionUsed, parseVersionRange(versionRange));
     }
     catch (InvalidVersionSpecificationException e) {
       LOG.warn("Error parsing version range: " + versionRange, e);
@@ -81,72 +95,25 @@ public final class Utilities {
   }
 
   /**
-   * Searches the name (title) of the license of the dependency.
-   *
-   * @param dependencyKey key of the used dependency
-   * @param allowedProjectDependencies - list of allowed dependencies
-   * @return name of the license or a empty String if nothing has been found
-   */
-  static String getLicenseName(String dependencyKey, List<AllowedDependency> allowedProjectDependencies) {
-    AllowedDependency pd = searchForProjectDependency(dependencyKey, allowedProjectDependencies);
-    return pd != null && pd.getLicense() != null ? pd.getLicense().getTitle() : "";
-  }
-
-  /**
-   * Searches the license of the used dependency.
+   * Checks if the version used is in the allowed (already parsed) range.
    *
-   * @param dependencyKey key of the used dependency
-   * @param allowedProjectDependencies - allowed dependencies
-   * @return the found license or null if nothing has been found
-   */
-  static License getLicense(String dependencyKey, List<AllowedDependency> allowedProjectDependencies) {
-    AllowedDependency pd = searchForProjectDependency(dependencyKey, allowedProjectDependencies);
-
-    return pd != null ? pd.getLicense() : null;
-
-  }
-
-  /**
-   * Searches for a dependency in a list of allowed dependencies.
-   *
-   * @param dependency currently handled dependency
-   * @param allowedProjectDependencies - list of allowed dependencies
-   * @return version range of the found dependency or an empty string
-   */
-  static String getDependencyVersionRange(Resource dependency, List<AllowedDependency> allowedProjectDependencies) {
-    AllowedDependency pd = searchForProjectDependency(dependency.getKey(), allowedProjectDependencies);
-    return pd != null ? pd.getVersionRange() : "";
-  }
-
-  /**
-   * Searches for a project dependency in the list of the allowed dependency.
-   *
-   * @param dependencyKey the key of the currently handled dependency
-   * @param allowedProjectDependencies - list of allowed dependencies
-   * @return found project dependency
+   * @param versionUsed - used versions
+   * @param versionRange - allowed versions, null if the range could not be parsed
+   * @return true if version used is in range
    */
-  static AllowedDependency searchForProjectDependency(String dependencyKey, List<AllowedDependency> allowedProjectDependencies) {
-    for (AllowedDependency projectDependency : allowedProjectDependencies) {
-      if (dependencyKey.startsWith(projectDependency.getKey())) {
-        return projectDependency;
-      }
-    }
-
-    return null;
+  static boolean versionAllowed(String versionUsed, VersionRange versionRange) {
+    return versionRange != null && versionRange.containsVersion(ARTIFACT_VERSIONS.getUnchecked(StringUtils.defaultString(versionUsed)));
   }
 
   /**
-   * Concatenates a SortedSet of Strings with a semicolon between them.
+   * Parses a version range in Maven syntax, an empty range allows every version.
    *
-   * @param sortedDependencies - SortedSet of Strings
-   * @return concatenated string
+   * @param versionRange - allowed versions
+   * @return the parsed version range
+   * @throws InvalidVersionSpecificationException if the range is not valid
    */
-  public static String concatStringList(SortedSet<String> sortedDependencies) {
-    String concatenatedString = "";
-    for (String s : sortedDependencies) {
-      concatenatedString = concatenatedString.concat(s + ";");
-    }
-    return concatenatedString;
+  static VersionRange parseVersionRange(String versionRange) throws InvalidVersionSpecificationException {
+    return VersionRange.createFromVersionSpec(StringUtils.isEmpty(versionRange) ? "0" : versionRange);
   }
 
   /**
@@ -164,20 +131,4 @@ public final class Utilities {
     return false;
   }
 
-  /**
-   * checks if the maven scope of the dependency is in the list of allowed scopes
-   *
-   * @param d - checked Dependency
-   * @param allowedScopes - allowed maven scopes
-   * @return true if maven scope of d is in allowedScopes
-   */
-  public static boolean inCheckScope(Dependency d, List<String> allowedScopes) {
-    for (String scope : allowedScopes) {
-      if (scope.equals(d.getUsage())) {
-        return true;
-      }
-    }
-    return false;
-  }
-
 }
@@ -0,0 +1,168 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.picocontainer.Startable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.BatchExtension;
+import org.sonar.api.batch.InstantiationStrategy;
+import org.sonar.api.batch.bootstrap.ProjectReactor;
+
+/**
+ * Local cache of the verdicts of previous analyses, stored in the working directory of the root project. Entries are
+ * keyed by a namespace (the hash of the policy and the dependency check settings), the library key and the version,
+ * so changed settings never hit old entries. The least recently used entries are evicted.
+ * <p>
+ * The cache is loaded when first used and written when the analysis ends, in the format of the {@link MeasureEncoder}.
+ */
+@InstantiationStrategy(InstantiationStrategy.PER_BATCH)
+public class VerdictCache implements BatchExtension, Startable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(VerdictCache.class);
+
+  static final String FILE_NAME = "dependencycheck/verdicts.dat";
+  private static final char SEPARATOR = '\n';
+  private static final String ENCODING = "UTF-8";
+
+  private final File file;
+  private Map<String, DependencyVerdict> verdicts;
+  private int maxEntries;
+  private boolean dirty;
+
+  /**
+   * @param reactor the projects of the analysis, the cache is stored in the working directory of the root
+   */
+  public VerdictCache(ProjectReactor reactor) {
+    this(new File(reactor.getRoot().getWorkDir(), FILE_NAME));
+  }
+
+  VerdictCache(File file) {
+    this.file = file;
+  }
+
+  /**
+   * Loads the cache if it has not been loaded yet.
+   *
+   * @param newMaxEntries the maximum number of entries, 0 or less disables the cache
+   * @return true if the cache is enabled
+   */
+  public synchronized boolean open(int newMaxEntries) {
+    if (verdicts == null && newMaxEntries > 0) {
+      maxEntries = newMaxEntries;
+      verdicts = new LinkedHashMap<String, DependencyVerdict>(Math.min(maxEntries, 1024), 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DependencyVerdict> eldest) {
+          return size() > maxEntries;
+        }
+      };
+      load();
+    }
+    return verdicts != null;
+  }
+
+  /**
+   * @param namespace the hash of the policy and settings
+   * @param dependencyKey the key of the library
+   * @param version the version of the library
+   * @return the cached verdict or null
+   */
+  public synchronized DependencyVerdict get(String namespace, String dependencyKey, String version) {
+    return verdicts != null ? verdicts.get(key(namespace, dependencyKey, version)) : null;
+  }
+
+  /**
+   * @param namespace the hash of the policy and settings
+   * @param dependencyKey the key of the library
+   * @param version the version of the library
+   * @param verdict the verdict
+   */
+  public synchronized void put(String namespace, String dependencyKey, String version, DependencyVerdict verdict) {
+    if (verdicts != null) {
+      verdicts.put(key(namespace, dependencyKey, version), verdict);
+      dirty = true;
+    }
+  }
+
+  private static String key(String namespace, String dependencyKey, String version) {
+    return namespace + SEPARATOR + dependencyKey + SEPARATOR + version;
+  }
+
+  private void load() {
+    if (!file.isFile()) {
+      return;
+    }
+    try {
+      for (String entry : MeasureDecoder.entries(FileUtils.readFileToString(file, ENCODING))) {
+        List<String> fields = MeasureDecoder.fields(entry);
+        verdicts.put(key(fields.get(0), fields.get(1), fields.get(2)), new DependencyVerdict(fields.get(3), fields.get(4), fields.get(5)));
+      }
+      LOGGER.debug("Loaded {} cached dependency verdicts", verdicts.size());
+    }
+    catch (IOException e) {
+      LOGGER.warn("Dependency verdict cache could not be read, starting empty: {}", e.getMessage());
+      verdicts.clear();
+    }
+    catch (RuntimeException e) {
+      LOGGER.warn("Dependency verdict cache is invalid, starting empty: {}", e.getMessage());
+      verdicts.clear();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void start() {
+    // loaded on first use
+  }
+
+  /**
+   * Writes the cache if it has been changed.
+   */
+  public synchronized void stop() {
+    if (verdicts == null || !dirty) {
+      return;
+    }
+    // oldest first, so the access order is restored when loading
+    List<String> entries = new ArrayList<String>(verdicts.size());
+    for (Map.Entry<String, DependencyVerdict> cached : verdicts.entrySet()) {
+      String[] key = cached.getKey().split(String.valueOf(SEPARATOR), 3);
+      DependencyVerdict verdict = cached.getValue();
+      entries.add(MeasureEncoder.entry(key[0], key[1], key[2], verdict.getStatus(), verdict.getLicenseId(), verdict.getAllowedRange()));
+    }
+    try {
+      File tmp = new File(file.getPath() + ".tmp");
+      FileUtils.writeStringToFile(tmp, MeasureEncoder.encode(entries), ENCODING);
+      FileUtils.deleteQuietly(file);
+      FileUtils.moveFile(tmp, file);
+      dirty = false;
+    }
+    catch (IOException e) {
+      LOGGER.warn("Dependency verdict cache could not be written: {}", e.getMessage());
+    }
+  }
+}
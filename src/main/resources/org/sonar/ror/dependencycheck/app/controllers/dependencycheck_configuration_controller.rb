@@ -1,116 +1,134 @@
-require 'rexml/document'
-
 class DependencycheckConfigurationController < ApplicationController
   SECTION = Navigation::SECTION_CONFIGURATION
   before_filter :admin_required
 
-  def load_licenses
-    licenseXml = Property.value('sonar.dependencycheck.license')
-    if !licenseXml
-      licenseXml = '<licenses></licenses>';
-      Property.set('sonar.dependencycheck.license', licenseXml)
-    end
-    REXML::Document.new licenseXml
-  end
-
-  def load_allowed_dependencies
-    dependencyXml = Property.value('sonar.dependencycheck.lib.global')
-    if !dependencyXml
-      dependencyXml = '<allowed-dependencies></allowed-dependencies>';
-      Property.set('sonar.dependencycheck.lib.global', dependencyXml)
-    end
-    REXML::Document.new dependencyXml
-  end
-
   #------------------GLOBAL-DEPENDENCIES-------------#  
 
   def index
-    @allowedGlobalDependencies = load_allowed_dependencies()
-    @licenseIds = []
-    load_licenses().elements.each('/licenses/license') do |license|
-      @licenseIds.push license.elements['id'].text
-    end
+    store = policy_store()
+    @version = store.getVersion()
+    @allowedGlobalDependencies = store.getDependencies().to_a
+    @licenseIds = store.getLicenses().to_a.map { |license| license.getId() }
   end
 
   def add
-    key=params['key']
-    version_range=params['version_range']
-    license=params['license']
-    newEntryAsString= <<EOF
-    <dependency>
-        <key>#{key}</key>
-        <versionRange>#{version_range}</versionRange>
-        <licenseId>#{license}</licenseId>
-    </dependency>
-EOF
-    allowedDependencies = load_allowed_dependencies()
-    allowedDependencies.root << REXML::Document.new(newEntryAsString).root
-
-    Property.set('sonar.dependencycheck.lib.global', allowedDependencies)
-
-    redirect_to :action => 'index'
+    change = policy_store().addDependency(params['version'], params['key'], params['version_range'], params['license'])
+    if save_change(change)
+      redirect_to :action => 'index'
+    else
+      index
+      render :template => 'dependencycheck_configuration/index'
+    end
   end
   
   def delete
-    element=params['index'].to_i
+    change = policy_store().deleteDependency(params['version'], params['index'].to_i)
+    if save_change(change)
+      redirect_to :action => 'index'
+    else
+      index
+      render :template => 'dependencycheck_configuration/index'
+    end
+  end
+
+  # Replaces the global dependencies with an uploaded CSV, XML or JSON Lines file (type, else the file extension).
+  # Without version (e.g. a nightly synchronization) the file is imported regardless of changes in the meantime and
+  # the result is returned as text.
+  def import
+    file = params[:file]
+    type = params[:type]
+    if type.blank? && file.respond_to?(:original_filename)
+      type = File.extname(file.original_filename).sub('.', '')
+    end
+    content = file.respond_to?(:read) ? file.read : file.to_s
+    change = nil
+    if policy_file_format().isSupported(type)
+      change = policy_store().importDependencies(params[:version].blank? ? nil : params[:version], type, content)
+    else
+      @error = "Unsupported type: #{type}"
+    end
 
-    doc = load_allowed_dependencies()
-    doc.root.delete_element element
-    Property.set('sonar.dependencycheck.lib.global', doc)
+    if params[:version].blank?
+      if change && save_change(change)
+        render :text => "Imported #{change.getDependencies().size()} dependencies"
+      else
+        render :text => @error, :status => 400
+      end
+    elsif change && save_change(change)
+      redirect_to :action => 'index'
+    else
+      index
+      render :template => 'dependencycheck_configuration/index'
+    end
+  end
 
-    redirect_to :action => 'index'
+  # Streams the global dependencies as CSV, XML or JSON Lines (type=csv, xml or jsonl).
+  def export
+    type = params[:type] || 'xml'
+    format = policy_file_format()
+    unless format.isSupported(type)
+      render :text => "Unsupported type: #{type}", :status => 400
+      return
+    end
+
+    dependencies = policy_store().getDependencies().to_a
+    response.headers['Content-Type'] = format.getContentType(type)
+    response.headers['Content-Disposition'] = "attachment; filename=\"allowed-dependencies.#{type}\""
+    render :layout => false, :text => proc { |resp, output|
+      output.write(format.header(type))
+      dependencies.each do |dependency|
+        output.write(format.row(type, dependency))
+      end
+      output.write(format.footer(type))
+    }
   end
 
   def licenses
-    @allowedLicenses = load_licenses()
+    store = policy_store()
+    @version = store.getVersion()
+    @allowedLicenses = store.getLicenses().to_a
     render :template => 'dependencycheck_configuration/licenses'
   end
 
   def addLicenses
-    
-    id = params['id']
-    title = params['title']
-    description = params['description']
-    url = params['url']
-    commercial = params['commercial']
-    sourceType = params['sourceType']
-
-    newEntryAsString= <<EOF
-    <license>
-        <id>#{id}</id>
-        <title>#{title}</title>
-        <description><![CDATA[#{description}]]></description>
-        <url>#{url}</url>
-        <sourceType>#{sourceType}</sourceType>
-        <commercial>#{commercial}</commercial>
-    </license>
-EOF
-
-    allowedLicenses = load_licenses()
-    if allowedLicenses.root.elements["/licenses/license[id='#{id}']"]
-        @error = "License with id '#{id}' already exists."
-        licenses
+    change = policy_store().addLicense(params['version'], params['id'], params['title'], params['description'], params['url'],
+      params['sourceType'], params['commercial'])
+    if save_change(change)
+      redirect_to :action => 'licenses'
     else
-        allowedLicenses.root << REXML::Document.new(newEntryAsString).root
-        Property.set('sonar.dependencycheck.license', allowedLicenses)
-        redirect_to :action => 'licenses'
+      licenses
     end
   end
 
   def deleteLicense
-    licenseId = params['id'].to_s
-
-    libs = load_allowed_dependencies()
-    if libs.root.elements["/allowed-dependencies/dependency[licenseId='#{licenseId}']"]
-        @error = "License '#{licenseId}' cannot be deleted because dependencies are using it.";
-        licenses
+    change = policy_store().deleteLicense(params['version'], params['id'].to_s)
+    if save_change(change)
+      redirect_to :action => 'licenses'
     else
-        doc = load_licenses()
-        doc.root.delete_element "/licenses/license[id = '#{licenseId}']"
-        Property.set('sonar.dependencycheck.license', doc)
+      licenses
+    end
+  end
+
+  protected
 
-        redirect_to :action => 'licenses'
+  # edits the parsed configuration, the properties are only written with the result of a change
+  def policy_store
+    Api::Utils.java_facade.getComponentByClassname('dependencycheck', 'org.sonar.plugins.dependencycheck.PolicyStore')
+  end
+
+  # saves the changed properties or shows why the change was rejected, the store checks the version again and adopts
+  # the change once its properties are written
+  def save_change(change)
+    change = policy_store().save(change) { |key, value| Property.set(key, value) } unless change.isRejected()
+    if change.isRejected()
+      @error = change.getError()
+      return false
     end
+    true
+  end
+
+  def policy_file_format
+    Api::Utils.java_facade.getComponentByClassname('dependencycheck', 'org.sonar.plugins.dependencycheck.PolicyFileFormat')
   end
 
-end
\ No newline at end of file
+end
@@ -2,12 +2,25 @@ class DependencycheckController < ApplicationController
 
     SECTION = Navigation::SECTION_RESOURCE
 
+    PAGE_SIZE = 100
+    SORT_COLUMNS = ['library', 'usage', 'version', 'license', 'status']
+
     def index
         init_resource_for_user_role
-        @entries = load_dependencies
+        table = dependency_table(@snapshot)
+
+        @sort = SORT_COLUMNS.include?(params[:sort]) ? params[:sort] : 'library'
+        @asc = params[:asc] != 'false'
+        @total = table.size
+        @page_count = [(@total + PAGE_SIZE - 1) / PAGE_SIZE, 1].max
+        @page = [[params[:page].to_i, 1].max, @page_count].min
+        # sorted and paged on the Java side, the sort orders are kept with the table
+        @entries = table.page(@sort, @asc, @page, PAGE_SIZE).to_a
         @licenses = load_licenses
     end
 
+    # The CSV export of the previous versions (Library;Version;License;Status, ISO-8859-1), kept unchanged for its
+    # consumers. See export for the streamed CSV and JSON Lines reports.
     def export_csv
         init_resource_for_user_role
         @entries = load_dependencies
@@ -15,64 +28,136 @@ class DependencycheckController < ApplicationController
         render :template => 'dependencycheck/export_csv', :layout => false
     end
 
+    # Streams the dependencies as CSV (type=csv) or JSON Lines (type=jsonl). Without id and with projects=all the
+    # dependencies of all projects are exported, for a portfolio (view) the ones of all its projects.
+    def export
+        type = params[:type] || 'csv'
+        report = report_format
+        unless report.isSupported(type)
+            render :text => "Unsupported type: #{type}", :status => 400
+            return
+        end
+
+        if params[:projects] == 'all' && params[:id].blank?
+            snapshots = select_authorized(:user, Snapshot.find(:all, :include => 'project',
+                :conditions => ["islast=? and scope='PRJ' and qualifier='TRK'", true]), :project)
+            name = 'all'
+        else
+            init_resource_for_user_role
+            snapshots = export_snapshots(@snapshot)
+            name = @resource.key
+        end
+
+        response.headers['Content-Type'] = report.getContentType(type)
+        response.headers['Content-Disposition'] = "attachment; filename=\"dependencies-#{name.gsub(/[^\w.-]/, '_')}.#{type}\""
+        render :layout => false, :text => proc { |resp, output|
+            output.write(report.header(type))
+            snapshots.each do |snapshot|
+                project_key = snapshot.project.key
+                each_dependency(snapshot) do |row|
+                    output.write(report.row(type, ([project_key] + row).to_java(:string)))
+                end
+            end
+        }
+    end
+
     protected
 
     def load_dependencies
-        
-        project_sid = @snapshot.id
-        dep_usage = []
-        if Api::Utils.java_facade.getSettings().getBoolean('dependencycheck.scope.compile')
-            dep_usage.push('compile')
-        end
-        if Api::Utils.java_facade.getSettings().getBoolean('dependencycheck.scope.provided')
-            dep_usage.push('provided')
-        end
-        if Api::Utils.java_facade.getSettings().getBoolean('dependencycheck.scope.runtime')
-            dep_usage.push('runtime')
-        end
-        if Api::Utils.java_facade.getSettings().getBoolean('dependencycheck.scope.test')
-            dep_usage.push('test')
-        end
+        entries = []
+        each_dependency(@snapshot) { |row| entries.push(row) }
+        entries
+    end
 
-        projects_sids = [project_sid]
-        if @snapshot.qualifier == 'TRK'
-            projects_sids += Snapshot.find(:all, :select => 'id', :conditions => ["scope = 'PRJ' AND root_snapshot_id=?", project_sid])
+    # yields [library name, usage, version, license, status, allowed versions] for each checked dependency of the
+    # snapshot (incl. the dependencies of the modules of a project)
+    def each_dependency(snapshot)
+        projects_sids = [snapshot.id]
+        if snapshot.qualifier == 'TRK'
+            projects_sids += Snapshot.find(:all, :select => 'id', :conditions => ["scope = 'PRJ' AND root_snapshot_id=?", snapshot.id])
         end
 
         dependencies = Dependency.find(:all,
             :include => ['to','to_snapshot'],
-            :conditions => ["project_snapshot_id in (?) and to_scope = 'PRJ' and dep_usage in (?)", projects_sids, dep_usage],
+            :conditions => ["project_snapshot_id in (?) and to_scope = 'PRJ' and dep_usage in (?)", projects_sids, checked_usages],
             :order => "projects.kee")
 
-        depMeasure = @snapshot.measure('dependencycheck.dependency').data
-        checkedDependencies = depMeasure.split(';')
-        entries = []
-        allowedVersions = nil
+        index = entry_index(snapshot)
+        seen = {}
         dependencies.each do |dep|
-            license = ''
-            status = ''
-            checkedDependencies.each do |checkedDep|
-                d = checkedDep.split('~')
-                if dep.to.key == d[0]
-                    license = d[1]
-                    status = d[2]
-                    if d.length > 3
-                        allowedVersions = d[3]
-                    end
-                    break 
+            checked = index.get(dep.to.key, dep.to_snapshot.version, dep.dep_usage)
+            if checked
+                row = [dep.to.name, dep.dep_usage, dep.to_snapshot.version, checked[0], checked[1], checked[2]]
+                unless seen[row]
+                    seen[row] = true
+                    yield row
                 end
             end
-            if status != ''
-                entries.push([dep.to.name, dep.dep_usage, dep.to_snapshot.version, license, status, allowedVersions])
+        end
+    end
+
+    # the root projects of the exported resource, for portfolios the projects referenced by it
+    def export_snapshots(snapshot)
+        if snapshot.qualifier == 'VW' || snapshot.qualifier == 'SVW'
+            copies = Snapshot.find(:all, :include => 'project',
+                :conditions => ["root_snapshot_id=? and path like ? and qualifier='TRK'", snapshot.root_snapshot_id || snapshot.id, "#{snapshot.path}#{snapshot.id}.%"])
+            project_ids = copies.map { |copy| copy.project.copy_resource_id }.compact
+            select_authorized(:user, Snapshot.find(:all, :include => 'project',
+                :conditions => ["islast=? and project_id in (?)", true, project_ids]), :project)
+        else
+            [snapshot]
+        end
+    end
+
+    def checked_usages
+        unless @checked_usages
+            settings = Api::Utils.java_facade.getSettings()
+            @checked_usages = []
+            ['compile', 'provided', 'runtime', 'test'].each do |scope|
+                @checked_usages.push(scope) if settings.getBoolean('dependencycheck.scope.' + scope)
             end
+            settings.getStringArray('dependencycheck.scope.additional').each do |scope|
+                @checked_usages.push(scope.strip.downcase)
+            end
+        end
+        @checked_usages
+    end
+
+    # the rows of the dependency table of the snapshot, built once per snapshot and checked usages
+    def dependency_table(snapshot)
+        usages = checked_usages.join(',')
+        table = entry_index_cache.getTable(snapshot.id, usages)
+        unless table
+            rows = []
+            each_dependency(snapshot) { |row| rows.push(row.to_java(:string)) }
+            table = entry_index_cache.putTable(snapshot.id, usages, rows)
         end
+        table
+    end
+
+    # the measures are decoded and indexed by library key once per snapshot (on the Java side), they are only loaded
+    # if the index is not cached and at most once per request
+    def entry_index(snapshot)
+        @entry_indexes ||= {}
+        @entry_indexes[snapshot.id] ||= (entry_index_cache.getCachedIndex(snapshot.id) ||
+            entry_index_cache.getIndex(snapshot.id, measure_data(snapshot, 'dependencycheck.dependency'), measure_data(snapshot, 'dependencycheck.license')))
+    end
 
-        entries.uniq
+    def entry_index_cache
+        Api::Utils.java_facade.getComponentByClassname('dependencycheck', 'org.sonar.plugins.dependencycheck.DependencyEntryIndexCache')
+    end
+
+    def report_format
+        Api::Utils.java_facade.getComponentByClassname('dependencycheck', 'org.sonar.plugins.dependencycheck.DependencyReportFormat')
     end
 
     def load_licenses
-        licMeasure = @snapshot.measure('dependencycheck.license').data
-        licMeasure.split(';')
+        entry_index(@snapshot).getLicenses().to_a
+    end
+
+    def measure_data(snapshot, metric_key)
+        measure = snapshot.measure(metric_key)
+        measure ? measure.data : nil
     end
 
     def load_data
@@ -18,6 +18,7 @@
 package org.sonar.plugins.dependencycheck;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.junit.Assert.assertThat;
 
 import java.io.InputStreamReader;
@@ -39,5 +40,20 @@ public class AllowedDependenciesTest {
     assertThat(dependencies.get(0).getKey(), is("ch.qos.logback:logback"));
     assertThat(dependencies.get(0).getVersionRange(), is("0.0"));
     assertThat(dependencies.get(1).getLicenseId(), is("Apache-2.0"));
+    assertThat(dependencies.get(1).getParsedVersionRange(), notNullValue());
+  }
+
+  @Test
+  public void onlyElementsOfRecordsRead() {
+    List<AllowedDependency> dependencies = AllowedDependencies.loadFromXml("<allowed-dependencies>"
+      + "<dependency><key>group:a</key><versionRange>[1.0,)</versionRange></dependency>"
+      + "<comment><key>group:comment</key></comment>"
+      + "<dependency><key>group:<b>b</b></key><licenseId>MIT</licenseId></dependency>"
+      + "</allowed-dependencies>");
+
+    assertThat(dependencies.size(), is(2));
+    assertThat(dependencies.get(0).getKey(), is("group:a"));
+    assertThat(dependencies.get(1).getKey(), is("group:b"));
+    assertThat(dependencies.get(1).getLicenseId(), is("MIT"));
   }
 }
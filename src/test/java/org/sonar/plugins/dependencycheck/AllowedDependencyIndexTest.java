@@ -0,0 +1,96 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link AllowedDependencyIndex}
+ */
+public class AllowedDependencyIndexTest {
+
+  @Test
+  public void findByPrefix() {
+    List<AllowedDependency> allowed = new ArrayList<AllowedDependency>();
+    allowed.add(new AllowedDependency("org.springframework:spring-core", "[3.0,4.0)", null));
+    allowed.add(new AllowedDependency("org.springframework.security:spring-security-", "0", null));
+    AllowedDependencyIndex index = new AllowedDependencyIndex(allowed);
+
+    assertThat(index.find("org.springframework:spring-core"), sameInstance(allowed.get(0)));
+    assertThat(index.find("org.springframework.security:spring-security-web"), sameInstance(allowed.get(1)));
+    assertThat(index.find("org.springframework:spring-beans"), nullValue());
+    assertThat(index.find("org.springframework"), nullValue());
+    assertThat(index.size(), is(2));
+  }
+
+  /**
+   * The most specific entry wins, independent of the order of the list (which only decides between equal keys), and the index has to return the same entry
+   * as the linear search in {@link LinearDependencySearch}.
+   */
+  @Test
+  public void mostSpecificEntryWins() {
+    List<AllowedDependency> allowed = new ArrayList<AllowedDependency>();
+    allowed.add(new AllowedDependency("org.springframework:spring-", "0", null));
+    allowed.add(new AllowedDependency("org.springframework:*", "1", null));
+    allowed.add(new AllowedDependency("org.springframework:spring-core", "[3.0,4.0)", null));
+    allowed.add(new AllowedDependency("org.springframework:spring-?eans", "2", null));
+    allowed.add(new AllowedDependency("org.springframework:spring-b*", "3", null));
+    AllowedDependencyIndex index = new AllowedDependencyIndex(allowed);
+
+    assertThat(index.find("org.springframework:spring-core"), sameInstance(allowed.get(2)));
+    assertThat(index.find("org.springframework:spring-beans"), sameInstance(allowed.get(3)));
+    assertThat(index.find("org.springframework:spring-batch"), sameInstance(allowed.get(4)));
+    assertThat(index.find("org.springframework:spring-aop"), sameInstance(allowed.get(0)));
+    assertThat(index.find("org.springframework:aspects"), sameInstance(allowed.get(1)));
+
+    Collections.reverse(allowed);
+    AllowedDependencyIndex reversed = new AllowedDependencyIndex(allowed);
+    for (String key : new String[] {"org.springframework:spring-core", "org.springframework:spring-beans",
+      "org.springframework:spring-batch", "org.springframework:spring-aop", "org.springframework:aspects", "org.apache:foo"}) {
+      assertThat(reversed.find(key), sameInstance(index.find(key)));
+      assertThat(reversed.find(key), sameInstance(LinearDependencySearch.search(key, allowed)));
+    }
+  }
+
+  @Test
+  public void patterns() {
+    List<AllowedDependency> allowed = new ArrayList<AllowedDependency>();
+    allowed.add(new AllowedDependency("org.apache.*:commons-*", "0", null));
+    allowed.add(new AllowedDependency("*.codehaus.*", "0", null));
+    AllowedDependencyIndex index = new AllowedDependencyIndex(allowed);
+
+    assertThat(index.find("org.apache.commons:commons-lang3"), sameInstance(allowed.get(0)));
+    assertThat(index.find("org.apache:commons-lang3"), nullValue());
+    assertThat(index.find("org.apache.commons:commons-lang3:extra"), nullValue());
+    assertThat(index.find("org.apache.commons:lang-commons-io"), nullValue());
+    assertThat(index.find("org.codehaus.groovy:groovy"), sameInstance(allowed.get(1)));
+    assertThat(index.find("org.codehaus.groovy"), sameInstance(allowed.get(1)));
+    assertThat(index.find("org.codehaus:groovy"), nullValue());
+    assertThat(AllowedDependencyIndex.isPattern("org.apache.*:commons-*"), is(true));
+    assertThat(AllowedDependencyIndex.isPattern("org.apache"), is(false));
+  }
+}
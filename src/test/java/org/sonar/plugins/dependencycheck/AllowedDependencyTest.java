@@ -0,0 +1,54 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link AllowedDependency}
+ */
+public class AllowedDependencyTest {
+
+  private static final License APACHE = new License("Apache-2.0", "Apache License", null, "", SourceType.OPENSOURCE_NO_COPYLEFT, false);
+
+  @Test
+  public void valueSemantics() {
+    AllowedDependency dependency = new AllowedDependency("group:lib", "[1.0,)", "Apache-2.0", null);
+    assertThat(dependency, is(new AllowedDependency("group:lib", "[1.0,)", "Apache-2.0", null)));
+    assertThat(dependency.hashCode(), is(new AllowedDependency("group:lib", "[1.0,)", "Apache-2.0", null).hashCode()));
+    assertThat(dependency, not(new AllowedDependency("group:lib", "[2.0,)", "Apache-2.0", null)));
+    assertThat(APACHE, is(new License("Apache-2.0", "Apache License", null, "", SourceType.OPENSOURCE_NO_COPYLEFT, false)));
+  }
+
+  @Test
+  public void withLicense() {
+    AllowedDependency dependency = new AllowedDependency("group:lib", "[1.0,)", "Apache-2.0", null);
+    AllowedDependency resolved = dependency.withLicense(APACHE);
+
+    assertThat(dependency.getLicense(), nullValue());
+    assertThat(resolved.getLicense(), is(APACHE));
+    assertThat(resolved.getParsedVersionRange(), sameInstance(dependency.getParsedVersionRange()));
+    assertThat(resolved, not(dependency));
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link CompiledPolicy}
+ */
+public class CompiledPolicyTest {
+
+  private static final String ALLOWED = "<allowed-dependencies>"
+    + "<dependency><key>group:apache-</key><versionRange>[1.0,)</versionRange><licenseId>Apache-2.0</licenseId></dependency>"
+    + "<dependency><key>group:apache-</key><versionRange>[2.0,)</versionRange><licenseId>Apache-2.0</licenseId></dependency>"
+    + "<dependency><key>group:unlicensed</key><versionRange>[1.0</versionRange></dependency>"
+    + "</allowed-dependencies>";
+  private static final String LICENSES = "<licenses>"
+    + "<license><id>Apache-2.0</id><title>Apache</title><url>http://www.apache.org/licenses/</url>"
+    + "<sourceType>OPENSOURCE_NO_COPYLEFT</sourceType><commercial>false</commercial></license>"
+    + "<license><id>Commercial</id><title>Commercial</title><commercial>true</commercial></license>"
+    + "</licenses>";
+
+  @Test
+  public void roundTrip() {
+    CompiledPolicy policy = CompiledPolicy.decode(CompiledPolicy.compile(ALLOWED, LICENSES));
+
+    assertThat(policy.getSourceHash(), is(CompiledPolicy.sourceHash(ALLOWED, LICENSES)));
+    assertThat(policy.getLicenses().get("Apache-2.0"), is(Licenses.loadFromXml(LICENSES).get(0)));
+    assertThat(policy.getLicenses().get("Commercial"), is(Licenses.loadFromXml(LICENSES).get(1)));
+    assertThat(policy.getDependencies(), is(Arrays.asList(
+        new AllowedDependency("group:apache-", "[1.0,)", policy.getLicenses().get("Apache-2.0")),
+        new AllowedDependency("group:unlicensed", "[1.0", null))));
+    assertThat(policy.getDependencies().get(0).getLicense().getId(), is("Apache-2.0"));
+    assertThat(policy.getDependencies().get(1).getParsedVersionRange() == null, is(true));
+  }
+
+  @Test
+  public void compileParsed() {
+    String hash = CompiledPolicy.sourceHash(ALLOWED, LICENSES);
+    assertThat(CompiledPolicy.compile(hash, AllowedDependencies.loadFromXml(ALLOWED), Licenses.loadFromXml(LICENSES)),
+        is(CompiledPolicy.compile(ALLOWED, LICENSES)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void truncatedLicense() {
+    CompiledPolicy.decode(MeasureEncoder.encode(Arrays.asList(MeasureEncoder.entry("policy", CompiledPolicy.ARTIFACT_VERSION, "hash"),
+        MeasureEncoder.entry("L", "MIT", "MIT"))));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void truncatedDependency() {
+    CompiledPolicy.decode(MeasureEncoder.encode(Arrays.asList(MeasureEncoder.entry("policy", CompiledPolicy.ARTIFACT_VERSION, "hash"),
+        MeasureEncoder.entry("D", "group:a"))));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void unknownVersion() {
+    CompiledPolicy.decode(MeasureEncoder.encode(Arrays.asList(MeasureEncoder.entry("policy", "0", "hash"))));
+  }
+}
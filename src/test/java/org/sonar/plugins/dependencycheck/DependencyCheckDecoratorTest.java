@@ -0,0 +1,290 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.config.Settings;
+import org.sonar.api.design.Dependency;
+import org.sonar.api.resources.Library;
+import org.sonar.api.resources.Project;
+
+/**
+ * Unit tests for {@link DependencyCheckDecorator}
+ */
+public class DependencyCheckDecoratorTest {
+
+  private static final String ALLOWED = "<allowed-dependencies>"
+    + "<dependency><key>group:apache-</key><versionRange>[1.0,)</versionRange><licenseId>Apache-2.0</licenseId></dependency>"
+    + "<dependency><key>group:gpl</key><versionRange>[1.0,)</versionRange><licenseId>GPL</licenseId></dependency>"
+    + "</allowed-dependencies>";
+  private static final String LICENSES = "<licenses>"
+    + "<license><id>Apache-2.0</id><title>Apache</title><sourceType>OPENSOURCE_NO_COPYLEFT</sourceType></license>"
+    + "<license><id>GPL</id><title>GPL</title><sourceType>OPENSOURCE_COPYLEFT</sourceType></license>"
+    + "</licenses>";
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void licensesOfMergedModules() {
+    Settings settings = new Settings();
+    settings.setProperty(DependencyCheckMetrics.LIBRARY_GLOBAL_PROPERTY, ALLOWED);
+    settings.setProperty(DependencyCheckMetrics.LICENSE_PROPERTY, LICENSES);
+    settings.setProperty(DependencyCheckMetrics.SCOPE_COMPILE_PROPERTY, true);
+
+    Project parent = new Project("group:parent");
+    Project module1 = new Project("group:module1").setParent(parent);
+    Project module2 = new Project("group:module2").setParent(parent);
+    Library apache1 = new Library("group:apache-one", "1.0");
+    Library apache2 = new Library("group:apache-two", "1.0");
+    Library gpl = new Library("group:gpl", "2.0");
+    Set<Dependency> dependencies = new HashSet<Dependency>(Arrays.asList(
+        dependency(module1, apache1), dependency(module1, gpl),
+        dependency(module2, apache1), dependency(module2, apache2)));
+
+    DependencyCheckDecorator decorator = new DependencyCheckDecorator(settings, new StubResourcePerspectives(), new DependencyPolicyCache(),
+        new DependencyGraphCache(), new DependencyCheckResults(), new DependencyCheckExecutor(), new VerdictCache(new File("verdicts.dat")),
+        new ModuleResultCache(new File("modules.dat")));
+    StubDecoratorContext context1 = new StubDecoratorContext(module1, dependencies);
+    StubDecoratorContext context2 = new StubDecoratorContext(module2, dependencies);
+    StubDecoratorContext parentContext = new StubDecoratorContext(parent, dependencies).addChild(context1).addChild(context2);
+    decorator.decorate(module1, context1);
+    decorator.decorate(module2, context2);
+    decorator.decorate(parent, parentContext);
+
+    List<String> licenses = MeasureDecoder.entries(parentContext.getMeasure(DependencyCheckMetrics.LICENSE).getData());
+    assertThat(licenses.size(), is(2));
+    assertThat(MeasureDecoder.fields(licenses.get(0)), is(Arrays.asList("Apache-2.0", "2", "OPENSOURCE_NO_COPYLEFT", "false")));
+    assertThat(MeasureDecoder.fields(licenses.get(1)), is(Arrays.asList("GPL", "1", "OPENSOURCE_COPYLEFT", "false")));
+    assertThat(MeasureDecoder.entries(parentContext.getMeasure(DependencyCheckMetrics.DEPENDENCY).getData()).size(), is(3));
+    assertThat(parentContext.getMeasure(DependencyCheckMetrics.OK_COUNT).getValue(), is(3.0));
+    assertThat(parentContext.getMeasure(DependencyCheckMetrics.UNLISTED_COUNT).getValue(), is(0.0));
+    assertThat(parentContext.getMeasure(DependencyCheckMetrics.LICENSE_COUNT).getValue(), is(2.0));
+    assertThat(parentContext.getMeasure(DependencyCheckMetrics.COPYLEFT_COUNT).getValue(), is(1.0));
+    assertThat(context1.getMeasure(DependencyCheckMetrics.OK_COUNT).getValue(), is(2.0));
+  }
+
+  /**
+   * The dependencies of the analysis grow with every module, the graph (and its memoized closures) is kept.
+   */
+  @Test
+  public void modulesInSequenceShareGraph() {
+    Settings settings = settings(1, 0);
+    Project module1 = new Project("group:module1");
+    Project module2 = new Project("group:module2");
+    Library apache = new Library("group:apache-one", "1.0");
+    Set<Dependency> dependencies = new HashSet<Dependency>(Arrays.asList(dependency(module1, apache),
+        new Dependency(apache, new Library("group:gpl", "1.0")).setUsage("compile")));
+    DependencyGraphCache graphCache = new DependencyGraphCache();
+    DependencyCheckDecorator decorator = new DependencyCheckDecorator(settings, new StubResourcePerspectives(), new DependencyPolicyCache(),
+        graphCache, new DependencyCheckResults(), new DependencyCheckExecutor(), new VerdictCache(new File("verdicts.dat")),
+        new ModuleResultCache(new File("modules.dat")));
+
+    decorator.decorate(module1, new StubDecoratorContext(module1, dependencies));
+    DependencyGraph graph = graphCache.getGraph(dependencies, ScopeFilter.fromSettings(settings));
+    dependencies.add(dependency(module2, apache));
+    dependencies.add(dependency(module2, new Library("group:unknown", "1.0")));
+    StubDecoratorContext context2 = new StubDecoratorContext(module2, dependencies);
+    decorator.decorate(module2, context2);
+
+    assertThat(graphCache.getGraph(dependencies, ScopeFilter.fromSettings(settings)), sameInstance(graph));
+    assertThat(graph.getDependencyCount(), is(4));
+    assertThat(context2.getMeasure(DependencyCheckMetrics.OK_COUNT).getValue(), is(2.0));
+    assertThat(context2.getMeasure(DependencyCheckMetrics.UNLISTED_COUNT).getValue(), is(1.0));
+  }
+
+  @Test
+  public void parallelResultIsStable() {
+    Project module = new Project("group:module");
+    Set<Dependency> dependencies = new HashSet<Dependency>();
+    for (int i = 0; i < 1000; i++) {
+      String key = i % 3 == 0 ? "group:lib" + i : "group:apache-" + i;
+      dependencies.add(dependency(module, new Library(key, i % 5 == 0 ? "0.9" : "1.0")));
+    }
+
+    StubResourcePerspectives sequential = new StubResourcePerspectives();
+    String sequentialData = decorate(module, dependencies, 1, sequential, new VerdictCache(new File("verdicts.dat")));
+    StubResourcePerspectives parallel = new StubResourcePerspectives();
+    String parallelData = decorate(module, dependencies, 4, parallel, new VerdictCache(new File("verdicts.dat")));
+
+    assertThat(parallelData, is(sequentialData));
+    assertThat(parallel.getIssues().size(), is(sequential.getIssues().size()));
+    for (int i = 0; i < sequential.getIssues().size(); i++) {
+      assertThat(parallel.getIssues().get(i).message(), is(sequential.getIssues().get(i).message()));
+    }
+  }
+
+  @Test
+  public void cachedVerdictsGiveSameResult() throws Exception {
+    Project module = new Project("group:module");
+    Set<Dependency> dependencies = new HashSet<Dependency>(Arrays.asList(
+        dependency(module, new Library("group:apache-one", "1.0")), dependency(module, new Library("group:apache-two", "0.9")),
+        dependency(module, new Library("group:unknown", "1.0"))));
+    File file = new File(temp.getRoot(), VerdictCache.FILE_NAME);
+
+    StubResourcePerspectives uncached = new StubResourcePerspectives();
+    String uncachedData = decorate(module, dependencies, 1, uncached, new VerdictCache(file));
+    VerdictCache first = new VerdictCache(file);
+    String firstData = decorate(module, dependencies, 1, new StubResourcePerspectives(), first, 100);
+    first.stop();
+    StubResourcePerspectives cached = new StubResourcePerspectives();
+    String cachedData = decorate(module, dependencies, 1, cached, new VerdictCache(file), 100);
+
+    assertThat(firstData, is(uncachedData));
+    assertThat(cachedData, is(uncachedData));
+    assertThat(cached.getIssues().size(), is(uncached.getIssues().size()));
+  }
+
+  @Test
+  public void unchangedModuleReusesPreviousResult() {
+    Project module = new Project("group:module");
+    Library apache = new Library("group:apache-one", "1.0");
+    Library unknown = new Library("group:unknown", "1.0");
+    Set<Dependency> dependencies = new HashSet<Dependency>(Arrays.asList(
+        dependency(module, apache), dependency(module, new Library("group:apache-two", "0.9")), dependency(module, unknown),
+        new Dependency(apache, new Library("group:apache-three", "1.0")).setUsage("compile")));
+    File file = new File(temp.getRoot(), ModuleResultCache.FILE_NAME);
+
+    StubResourcePerspectives checked = new StubResourcePerspectives();
+    ModuleResultCache first = new ModuleResultCache(file);
+    String checkedData = decorate(module, dependencies, checked, first);
+    first.stop();
+    assertThat(file.isFile(), is(true));
+
+    StubResourcePerspectives reused = new StubResourcePerspectives();
+    assertThat(decorate(module, dependencies, reused, new ModuleResultCache(file)), is(checkedData));
+    assertThat(reused.getIssues().size(), is(2));
+    for (int i = 0; i < checked.getIssues().size(); i++) {
+      assertThat(reused.getIssues().get(i).message(), is(checked.getIssues().get(i).message()));
+    }
+
+    // a new transitive dependency is checked
+    dependencies.add(new Dependency(apache, new Library("group:apache-four", "0.5")).setUsage("compile"));
+    StubResourcePerspectives changed = new StubResourcePerspectives();
+    decorate(module, dependencies, changed, new ModuleResultCache(file));
+    assertThat(changed.getIssues().size(), is(3));
+  }
+
+  @Test
+  public void statisticsSavedAsMeasures() {
+    Project module = new Project("group:module");
+    Set<Dependency> dependencies = new HashSet<Dependency>(Arrays.asList(
+        dependency(module, new Library("group:apache-one", "1.0")), dependency(module, new Library("group:unknown", "1.0"))));
+    Settings settings = settings(1, 10);
+    settings.setProperty(DependencyCheckMetrics.STATISTICS_PROPERTY, true);
+    VerdictCache verdictCache = new VerdictCache(new File(temp.getRoot(), VerdictCache.FILE_NAME));
+    DependencyCheckDecorator decorator = new DependencyCheckDecorator(settings, new StubResourcePerspectives(), new DependencyPolicyCache(),
+        new DependencyGraphCache(), new DependencyCheckResults(), new DependencyCheckExecutor(), verdictCache,
+        new ModuleResultCache(new File("modules.dat")));
+
+    StubDecoratorContext first = new StubDecoratorContext(module, dependencies);
+    decorator.decorate(module, first);
+    assertThat(first.getMeasure(DependencyCheckMetrics.CACHE_HITS).getValue(), is(0.0));
+    assertThat(first.getMeasure(DependencyCheckMetrics.UNLISTED_COUNT).getValue(), is(1.0));
+    assertThat(first.getMeasure(DependencyCheckMetrics.ANALYSIS_TIME).getValue() >= 0.0, is(true));
+    StubDecoratorContext second = new StubDecoratorContext(module, dependencies);
+    decorator.decorate(module, second);
+    assertThat(second.getMeasure(DependencyCheckMetrics.CACHE_HITS).getValue(), is(2.0));
+  }
+
+  /**
+   * The chunks checked in parallel count their cache hits on their own, they are added to the module when it waits for
+   * the chunks.
+   */
+  @Test
+  public void parallelStatistics() {
+    Project module = new Project("group:module");
+    Set<Dependency> dependencies = new HashSet<Dependency>();
+    for (int i = 0; i < 1000; i++) {
+      dependencies.add(dependency(module, new Library("group:apache-" + i, "1.0")));
+    }
+    Settings settings = settings(4, 2000);
+    settings.setProperty(DependencyCheckMetrics.STATISTICS_PROPERTY, true);
+    DependencyCheckExecutor executor = new DependencyCheckExecutor();
+    DependencyCheckDecorator decorator = new DependencyCheckDecorator(settings, new StubResourcePerspectives(), new DependencyPolicyCache(),
+        new DependencyGraphCache(), new DependencyCheckResults(), executor,
+        new VerdictCache(new File(temp.getRoot(), VerdictCache.FILE_NAME)), new ModuleResultCache(new File("modules.dat")));
+    try {
+      decorator.decorate(module, new StubDecoratorContext(module, dependencies));
+      StubDecoratorContext second = new StubDecoratorContext(module, dependencies);
+      decorator.decorate(module, second);
+      assertThat(second.getMeasure(DependencyCheckMetrics.CACHE_HITS).getValue(), is(1000.0));
+    }
+    finally {
+      executor.stop();
+    }
+  }
+
+  private static String decorate(Project module, Set<Dependency> dependencies, StubResourcePerspectives perspectives,
+      ModuleResultCache moduleResults) {
+    Settings settings = settings(1, 0);
+    settings.setProperty(DependencyCheckMetrics.INCREMENTAL_PROPERTY, true);
+    return decorate(module, dependencies, settings, perspectives, new VerdictCache(new File("verdicts.dat")), moduleResults);
+  }
+
+  private static String decorate(Project module, Set<Dependency> dependencies, int parallelism, StubResourcePerspectives perspectives,
+      VerdictCache verdictCache) {
+    return decorate(module, dependencies, parallelism, perspectives, verdictCache, 0);
+  }
+
+  private static String decorate(Project module, Set<Dependency> dependencies, int parallelism, StubResourcePerspectives perspectives,
+      VerdictCache verdictCache, int verdictCacheSize) {
+    return decorate(module, dependencies, settings(parallelism, verdictCacheSize), perspectives, verdictCache,
+        new ModuleResultCache(new File("modules.dat")));
+  }
+
+  private static Settings settings(int parallelism, int verdictCacheSize) {
+    Settings settings = new Settings();
+    settings.setProperty(DependencyCheckMetrics.LIBRARY_GLOBAL_PROPERTY, ALLOWED);
+    settings.setProperty(DependencyCheckMetrics.LICENSE_PROPERTY, LICENSES);
+    settings.setProperty(DependencyCheckMetrics.SCOPE_COMPILE_PROPERTY, true);
+    settings.setProperty(DependencyCheckMetrics.PARALLELISM_PROPERTY, parallelism);
+    settings.setProperty(DependencyCheckMetrics.VERDICT_CACHE_PROPERTY, verdictCacheSize);
+    return settings;
+  }
+
+  private static String decorate(Project module, Set<Dependency> dependencies, Settings settings, StubResourcePerspectives perspectives,
+      VerdictCache verdictCache, ModuleResultCache moduleResults) {
+    DependencyCheckExecutor executor = new DependencyCheckExecutor();
+    try {
+      StubDecoratorContext context = new StubDecoratorContext(module, dependencies);
+      new DependencyCheckDecorator(settings, perspectives, new DependencyPolicyCache(), new DependencyGraphCache(), new DependencyCheckResults(),
+          executor, verdictCache, moduleResults).decorate(module, context);
+      return context.getMeasure(DependencyCheckMetrics.DEPENDENCY).getData();
+    }
+    finally {
+      executor.stop();
+    }
+  }
+
+  private static Dependency dependency(Project from, Library to) {
+    return new Dependency(from, to).setUsage("compile");
+  }
+}
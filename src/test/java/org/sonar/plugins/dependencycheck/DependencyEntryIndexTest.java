@@ -0,0 +1,95 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.sonar.api.config.Settings;
+
+/**
+ * Unit tests for {@link DependencyEntryIndex}
+ */
+public class DependencyEntryIndexTest {
+
+  private static final Map<String, License> CATALOGUE = new HashMap<String, License>();
+  static {
+    CATALOGUE.put("Apache-2.0", new License("Apache-2.0", "Apache License", null, "http://www.apache.org/licenses/LICENSE-2.0",
+        SourceType.OPENSOURCE_NO_COPYLEFT, false));
+    CATALOGUE.put("X", new License("X", "A;B~C", null, null, SourceType.CLOSED, true));
+  }
+
+  @Test
+  public void lookupByKey() {
+    String licenses = MeasureEncoder.encode(Arrays.asList(
+        MeasureEncoder.licenseEntry("Apache-2.0", 1, SourceType.OPENSOURCE_NO_COPYLEFT, false),
+        MeasureEncoder.licenseEntry("X", 1, SourceType.CLOSED, true)));
+    String dependencies = MeasureEncoder.encode(Arrays.asList(
+        MeasureEncoder.dependencyEntry("group:a", "1.0", "compile", "Apache-2.0", "OK", ""),
+        MeasureEncoder.dependencyEntry("group:b", "1.0", "compile", "", "UNLISTED", ""),
+        MeasureEncoder.dependencyEntry("group:c", "1.0", "test", "X", "OK", ""),
+        MeasureEncoder.dependencyEntry("group:c", "3.0", "compile", "X", "WRONG_VERSION", "[1.0,2.0)")));
+
+    DependencyEntryIndex index = DependencyEntryIndex.parse(dependencies, licenses, CATALOGUE);
+    assertThat(index.size(), is(3));
+    assertThat(index.get("group:a"), is(new String[] {"Apache License", "OK", null}));
+    assertThat(index.get("group:b"), is(new String[] {"no license information", "UNLISTED", null}));
+    assertThat(index.get("group:c", "3.0", "compile"), is(new String[] {"A;B~C", "WRONG_VERSION", "[1.0,2.0)"}));
+    assertThat(index.get("group:c", "1.0", "compile"), is(new String[] {"A;B~C", "OK", null}));
+    assertThat(index.get("group:d"), nullValue());
+    assertThat(index.getLicenses().get(0), is(new String[] {"Apache License", "http://www.apache.org/licenses/LICENSE-2.0", "1",
+      "OPENSOURCE_NO_COPYLEFT", "false"}));
+  }
+
+  @Test
+  public void legacyData() {
+    DependencyEntryIndex index = DependencyEntryIndex.parse("group:a~Apache License~OK;group:c~X~WRONG_VERSION~[1.0,2.0);",
+        "Apache License~http://www.apache.org/licenses/LICENSE-2.0;", CATALOGUE);
+    assertThat(index.get("group:a", "1.0", "compile"), is(new String[] {"Apache License", "OK", null}));
+    assertThat(index.get("group:c"), is(new String[] {"X", "WRONG_VERSION", "[1.0,2.0)"}));
+    assertThat(index.getLicenses().get(0), is(new String[] {"Apache License", "http://www.apache.org/licenses/LICENSE-2.0", null, null, null}));
+  }
+
+  @Test
+  public void cachedBySnapshot() {
+    DependencyEntryIndexCache cache = new DependencyEntryIndexCache(new Settings());
+    String dependencies = MeasureEncoder.encode(Arrays.asList(MeasureEncoder.dependencyEntry("group:a", "1.0", "compile", "", "OK", "")));
+    assertThat(cache.getCachedIndex(1L), nullValue());
+
+    DependencyEntryIndex index = cache.getIndex(1L, dependencies, null);
+    assertThat(cache.getCachedIndex(1L), sameInstance(index));
+    assertThat(cache.getIndex(1L, null, null), sameInstance(index));
+    assertThat(cache.getTable(1L, "compile"), nullValue());
+    DependencyTable table = cache.putTable(1L, "compile", Collections.<String[]>emptyList());
+    assertThat(cache.getTable(1L, "compile"), sameInstance(table));
+    assertThat(cache.getTable(1L, "compile,test"), nullValue());
+  }
+
+  @Test
+  public void noData() {
+    assertThat(DependencyEntryIndex.parse(null, null, CATALOGUE).size(), is(0));
+  }
+}
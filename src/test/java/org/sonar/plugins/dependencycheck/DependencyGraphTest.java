@@ -0,0 +1,201 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.sonar.api.design.Dependency;
+import org.sonar.api.resources.Library;
+import org.sonar.api.resources.Project;
+import org.sonar.api.resources.Resource;
+
+/**
+ * Unit tests for {@link DependencyGraph}
+ */
+public class DependencyGraphTest {
+
+  private static final ScopeFilter SCOPES = new ScopeFilter(EnumSet.of(DependencyScope.COMPILE, DependencyScope.RUNTIME));
+
+  /**
+   * Every library of a layer depends on every library of the next layer. Walking this graph path by path needs
+   * WIDTH^DEPTH steps.
+   */
+  @Test(timeout = 10000)
+  public void wideDeepDiamond() {
+    final int width = 20;
+    final int depth = 40;
+    Set<Dependency> dependencies = new HashSet<Dependency>();
+    Project module1 = new Project("group:module1");
+    Project module2 = new Project("group:module2");
+
+    Library[] previous = null;
+    for (int layer = 0; layer < depth; layer++) {
+      Library[] current = new Library[width];
+      for (int i = 0; i < width; i++) {
+        current[i] = new Library("group:lib-" + layer + "-" + i, "1.0");
+        if (previous == null) {
+          dependencies.add(dependency(module1, current[i], "compile"));
+          dependencies.add(dependency(module2, current[i], "compile"));
+        }
+        else {
+          for (Library from : previous) {
+            dependencies.add(dependency(from, current[i], "compile"));
+          }
+        }
+      }
+      previous = current;
+    }
+
+    DependencyGraph graph = new DependencyGraph(dependencies, SCOPES);
+    assertThat(graph.findTransitiveDependencies(module1.getKey()).size(), is(width * depth));
+    assertThat(graph.findTransitiveDependencies(module2.getKey()).size(), is(width * depth));
+  }
+
+  @Test(timeout = 10000)
+  public void cycle() {
+    Project module = new Project("group:module");
+    Library a = new Library("group:a", "1.0");
+    Library b = new Library("group:b", "1.0");
+    Library c = new Library("group:c", "1.0");
+    Set<Dependency> dependencies = new HashSet<Dependency>(Arrays.asList(
+        dependency(module, a, "compile"),
+        dependency(a, b, "compile"),
+        dependency(b, a, "compile"),
+        dependency(b, c, "runtime")));
+
+    Set<Resource> result = new DependencyGraph(dependencies, SCOPES).findTransitiveDependencies(module.getKey());
+    assertThat(result, is((Set<Resource>) new HashSet<Resource>(Arrays.<Resource>asList(a, b, c))));
+  }
+
+  @Test
+  public void skipScopesNotChecked() {
+    Project module = new Project("group:module");
+    Library a = new Library("group:a", "1.0");
+    Library b = new Library("group:b", "1.0");
+    Set<Dependency> dependencies = new HashSet<Dependency>(Arrays.asList(
+        dependency(module, a, "compile"),
+        dependency(module, b, "test")));
+
+    Set<Resource> result = new DependencyGraph(dependencies, SCOPES).findTransitiveDependencies(module.getKey());
+    assertThat(result, is((Set<Resource>) new HashSet<Resource>(Arrays.<Resource>asList(a))));
+  }
+
+  @Test
+  public void scopeOfDirectDependency() {
+    Project module = new Project("group:module");
+    Library a = new Library("group:a", "1.0");
+    Library b = new Library("group:b", "1.0");
+    Library c = new Library("group:c", "1.0");
+    Set<Dependency> dependencies = new HashSet<Dependency>(Arrays.asList(
+        dependency(module, a, "runtime"),
+        dependency(a, b, "compile"),
+        dependency(module, c, "compile")));
+
+    Map<Resource, DependencyScope> result = new DependencyGraph(dependencies, SCOPES).findScopedDependencies(module.getKey());
+    assertThat(result.get(a), is(DependencyScope.RUNTIME));
+    assertThat(result.get(b), is(DependencyScope.RUNTIME));
+    assertThat(result.get(c), is(DependencyScope.COMPILE));
+  }
+
+  /**
+   * A library reached by a test and a compile dependency is in compile scope, whichever is listed first.
+   */
+  @Test
+  public void strongestScopeOfDirectDependencies() {
+    Project module = new Project("group:module");
+    Library a = new Library("group:a", "1.0");
+    Library b = new Library("group:b", "1.0");
+    Library c = new Library("group:c", "1.0");
+    ScopeFilter scopes = new ScopeFilter(EnumSet.of(DependencyScope.COMPILE, DependencyScope.TEST));
+    for (List<Dependency> dependencies : Arrays.asList(
+        Arrays.asList(dependency(module, a, "test"), dependency(module, b, "compile")),
+        Arrays.asList(dependency(module, b, "compile"), dependency(module, a, "test")))) {
+      List<Dependency> all = new ArrayList<Dependency>(dependencies);
+      all.add(dependency(a, c, "compile"));
+      all.add(dependency(b, c, "compile"));
+      all.add(dependency(b, a, "compile"));
+
+      Map<Resource, DependencyScope> result = new DependencyGraph(all, scopes).findScopedDependencies(module.getKey());
+      assertThat(result.get(a), is(DependencyScope.COMPILE));
+      assertThat(result.get(b), is(DependencyScope.COMPILE));
+      assertThat(result.get(c), is(DependencyScope.COMPILE));
+    }
+  }
+
+  /**
+   * New dependencies only drop the closures reaching a library with new dependencies.
+   */
+  @Test
+  public void addDependencies() {
+    Project module1 = new Project("group:module1");
+    Project module2 = new Project("group:module2");
+    Library a = new Library("group:a", "1.0");
+    Library b = new Library("group:b", "1.0");
+    Library c = new Library("group:c", "1.0");
+    Library d = new Library("group:d", "1.0");
+    Set<Dependency> dependencies = new HashSet<Dependency>(Arrays.asList(
+        dependency(module1, a, "compile"), dependency(a, b, "compile"), dependency(module1, c, "compile")));
+    DependencyGraph graph = new DependencyGraph(dependencies, SCOPES);
+    assertThat(graph.findTransitiveDependencies(module1.getKey()), is((Set<Resource>) new HashSet<Resource>(Arrays.<Resource>asList(a, b, c))));
+    String fingerprint = graph.fingerprint(module1.getKey());
+
+    dependencies.add(dependency(module2, a, "compile"));
+    dependencies.add(dependency(b, d, "compile"));
+    assertThat(graph.addAll(dependencies), is(2));
+    assertThat(graph.addAll(dependencies), is(0));
+    assertThat(graph.getDependencyCount(), is(5));
+    Set<Resource> expected = new HashSet<Resource>(Arrays.<Resource>asList(a, b, c, d));
+    assertThat(graph.findTransitiveDependencies(module1.getKey()), is(expected));
+    assertThat(graph.findTransitiveDependencies(module2.getKey()), is((Set<Resource>) new HashSet<Resource>(Arrays.<Resource>asList(a, b, d))));
+    assertThat(graph.fingerprint(module1.getKey()), is(new DependencyGraph(dependencies, SCOPES).fingerprint(module1.getKey())));
+    assertThat(graph.fingerprint(module1.getKey()).equals(fingerprint), is(false));
+  }
+
+  @Test
+  public void fingerprint() {
+    Project module1 = new Project("group:module1");
+    Project module2 = new Project("group:module2");
+    Library a = new Library("group:a", "1.0");
+    Set<Dependency> dependencies = new HashSet<Dependency>(Arrays.asList(
+        dependency(module1, a, "compile"),
+        dependency(module2, new Library("group:b", "1.0"), "compile"),
+        dependency(a, new Library("group:c", "1.0"), "compile")));
+    String fingerprint = new DependencyGraph(dependencies, SCOPES).fingerprint(module1.getKey());
+
+    dependencies.add(dependency(module2, new Library("group:d", "1.0"), "compile"));
+    assertThat(new DependencyGraph(dependencies, SCOPES).fingerprint(module1.getKey()), is(fingerprint));
+    dependencies.add(dependency(module1, new Library("group:e", "1.0"), "test"));
+    assertThat(new DependencyGraph(dependencies, SCOPES).fingerprint(module1.getKey()), is(fingerprint));
+    dependencies.add(dependency(a, new Library("group:c", "2.0"), "compile"));
+    assertThat(new DependencyGraph(dependencies, SCOPES).fingerprint(module1.getKey()).equals(fingerprint), is(false));
+  }
+
+  private static Dependency dependency(Resource from, Resource to, String scope) {
+    return new Dependency(from, to).setUsage(scope);
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.sonar.api.issue.Issuable;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.resources.Project;
+import org.sonar.api.resources.Resource;
+
+/**
+ * Unit tests for {@link DependencyIssues}
+ */
+public class DependencyIssuesTest {
+
+  @Test
+  public void limitWithSummary() {
+    DependencyIssues issues = new DependencyIssues(2);
+    issues.addUnlisted("group:c");
+    issues.addUnlisted("group:a");
+    issues.addUnlisted("group:d");
+    issues.addUnlisted("group:b");
+    issues.addWrongVersion("group:e", "1.0", "[2.0,)");
+
+    StubResourcePerspectives perspectives = new StubResourcePerspectives();
+    issues.save(perspectives.as(Issuable.class, (Resource) new Project("group:module")));
+
+    List<Issue> saved = perspectives.getIssues();
+    assertThat(saved.size(), is(4));
+    assertThat(saved.get(0).message(), is("Dependency: group:a is not listed!"));
+    assertThat(saved.get(1).message(), is("Dependency: group:b is not listed!"));
+    assertThat(saved.get(2).message(), is("2 more unlisted dependencies"));
+    assertThat(saved.get(2).ruleKey(), is(DependencyIssues.UNLISTED_RULE));
+    assertThat(saved.get(3).ruleKey(), is(DependencyIssues.WRONG_VERSION_RULE));
+  }
+
+  @Test
+  public void noLimit() {
+    DependencyIssues issues = new DependencyIssues(0);
+    for (int i = 0; i < 10; i++) {
+      issues.addUnlisted("group:lib" + i);
+    }
+
+    StubResourcePerspectives perspectives = new StubResourcePerspectives();
+    issues.save(perspectives.as(Issuable.class, (Resource) new Project("group:module")));
+    assertThat(perspectives.getIssues().size(), is(10));
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.InputStreamReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.sonar.api.config.Settings;
+
+public class DependencyPolicyCacheTest {
+
+  private static final String PROJECT_XML = "<allowed-dependencies><dependency><key>ch.qos.logback:logback</key>"
+    + "<versionRange>[1.0,)</versionRange><licenseId>Apache-2.0</licenseId></dependency></allowed-dependencies>";
+
+  @Test
+  public void sharePolicyBetweenModules() throws Exception {
+    DependencyPolicyCache cache = new DependencyPolicyCache();
+    Settings module1 = globalSettings();
+    Settings module2 = globalSettings();
+
+    DependencyPolicy policy = cache.getPolicy(module1);
+    assertThat(cache.getPolicy(module2), sameInstance(policy));
+    assertThat(policy.find("ch.qos.logback:logback-core").getVersionRange(), is("0.0"));
+    assertThat(policy.find("org.springframework.security:spring-security-web").getLicense().getId(), is("Apache-2.0"));
+  }
+
+  @Test
+  public void projectDependenciesOverrideGlobal() throws Exception {
+    DependencyPolicyCache cache = new DependencyPolicyCache();
+    Settings module = globalSettings();
+    module.setProperty(DependencyCheckMetrics.LIBRARY_PROJECT_PROPERTY, PROJECT_XML);
+
+    DependencyPolicy policy = cache.getPolicy(module);
+    assertThat(policy, not(sameInstance(cache.getPolicy(globalSettings()))));
+    assertThat(policy.find("ch.qos.logback:logback-core").getVersionRange(), is("[1.0,)"));
+    assertThat(policy.find("ch.qos.logback:logback-core").getLicense().getId(), is("Apache-2.0"));
+    assertThat(cache.getPolicy(module), sameInstance(policy));
+  }
+
+  /**
+   * A matching project dependency wins even if a global dependency is more specific, the other libraries fall through
+   * to the (shared) global dependencies.
+   */
+  @Test
+  public void projectDependenciesOverlayGlobal() throws Exception {
+    DependencyPolicyCache cache = new DependencyPolicyCache();
+    Settings module = globalSettings();
+    module.setProperty(DependencyCheckMetrics.LIBRARY_PROJECT_PROPERTY, "<allowed-dependencies><dependency><key>ch.qos.*</key>"
+      + "<versionRange>[2.0,)</versionRange></dependency></allowed-dependencies>");
+
+    DependencyPolicy policy = cache.getPolicy(module);
+    DependencyPolicy globalPolicy = cache.getPolicy(globalSettings());
+    assertThat(policy.find("ch.qos.logback:logback-core").getVersionRange(), is("[2.0,)"));
+    assertThat(globalPolicy.find("ch.qos.logback:logback-core").getVersionRange(), is("0.0"));
+    String key = "org.springframework.security:spring-security-web";
+    assertThat(policy.find(key), sameInstance(globalPolicy.find(key)));
+  }
+
+  @Test
+  public void namespaceOfPolicyAndSettings() throws Exception {
+    DependencyPolicyCache cache = new DependencyPolicyCache();
+    Settings module1 = globalSettings();
+    Settings module2 = globalSettings();
+    String namespace = cache.getNamespace(cache.getPolicy(module1), module1);
+
+    assertThat(cache.getNamespace(cache.getPolicy(module2), module2), sameInstance(namespace));
+    module2.setProperty(DependencyCheckMetrics.ISSUE_LIMIT_PROPERTY, 10);
+    assertThat(cache.getNamespace(cache.getPolicy(module2), module2), not(namespace));
+    module2.removeProperty(DependencyCheckMetrics.ISSUE_LIMIT_PROPERTY);
+    module2.setProperty(DependencyCheckMetrics.LIBRARY_PROJECT_PROPERTY, PROJECT_XML);
+    assertThat(cache.getNamespace(cache.getPolicy(module2), module2), not(namespace));
+  }
+
+  @Test
+  public void compiledPolicyOfCurrentXml() throws Exception {
+    Settings settings = globalSettings();
+    String globalXml = settings.getString(DependencyCheckMetrics.LIBRARY_GLOBAL_PROPERTY);
+    String licenseXml = settings.getString(DependencyCheckMetrics.LICENSE_PROPERTY);
+    settings.setProperty(DependencyCheckMetrics.COMPILED_POLICY_PROPERTY, CompiledPolicy.compile(globalXml, licenseXml));
+    DependencyPolicy policy = new DependencyPolicyCache().getPolicy(settings);
+    assertThat(policy.find("ch.qos.logback:logback-core").getVersionRange(), is("0.0"));
+    assertThat(policy.find("org.springframework.security:spring-security-web").getLicense().getId(), is("Apache-2.0"));
+
+    // the XML is not parsed if the artifact was compiled from it
+    settings.setProperty(DependencyCheckMetrics.COMPILED_POLICY_PROPERTY, MeasureEncoder.encode(Arrays.asList(
+        MeasureEncoder.entry("policy", CompiledPolicy.ARTIFACT_VERSION, CompiledPolicy.sourceHash(globalXml, licenseXml)),
+        MeasureEncoder.entry("D", "ch.qos.logback:logback", "[9.0,)", ""))));
+    assertThat(new DependencyPolicyCache().getPolicy(settings).find("ch.qos.logback:logback-core").getVersionRange(), is("[9.0,)"));
+
+    // compiled from other XML, the XML is read
+    settings.setProperty(DependencyCheckMetrics.COMPILED_POLICY_PROPERTY, CompiledPolicy.compile(PROJECT_XML, licenseXml));
+    assertThat(new DependencyPolicyCache().getPolicy(settings).find("ch.qos.logback:logback-core").getVersionRange(), is("0.0"));
+    settings.setProperty(DependencyCheckMetrics.COMPILED_POLICY_PROPERTY, "invalid");
+    assertThat(new DependencyPolicyCache().getPolicy(settings).find("ch.qos.logback:logback-core").getVersionRange(), is("0.0"));
+  }
+
+  @Test
+  public void compiledPolicyOfEditedXml() throws Exception {
+    Settings settings = globalSettings();
+    String globalXml = settings.getString(DependencyCheckMetrics.LIBRARY_GLOBAL_PROPERTY);
+    String licenseXml = settings.getString(DependencyCheckMetrics.LICENSE_PROPERTY);
+    settings.setProperty(DependencyCheckMetrics.COMPILED_POLICY_PROPERTY, CompiledPolicy.compile(globalXml, licenseXml));
+    DependencyPolicyCache cache = new DependencyPolicyCache();
+    assertThat(cache.getPolicy(settings).find("ch.qos.logback:logback-core").getVersionRange(), is("0.0"));
+
+    // an edit of the same length without compiling again (e.g. a scanner property) is read from the XML
+    settings.setProperty(DependencyCheckMetrics.LIBRARY_GLOBAL_PROPERTY, globalXml.replace(">0.0<", ">0.1<"));
+    assertThat(cache.getPolicy(settings).find("ch.qos.logback:logback-core").getVersionRange(), is("0.1"));
+
+    // a damaged artifact is ignored
+    settings.setProperty(DependencyCheckMetrics.LIBRARY_GLOBAL_PROPERTY, globalXml);
+    settings.setProperty(DependencyCheckMetrics.COMPILED_POLICY_PROPERTY, MeasureEncoder.encode(Arrays.asList(
+        MeasureEncoder.entry("policy", CompiledPolicy.ARTIFACT_VERSION, CompiledPolicy.sourceHash(globalXml, licenseXml)),
+        MeasureEncoder.entry("L", "Apache-2.0"))));
+    assertThat(new DependencyPolicyCache().getPolicy(settings).find("ch.qos.logback:logback-core").getVersionRange(), is("0.0"));
+  }
+
+  private static Settings globalSettings() throws Exception {
+    Settings settings = new Settings();
+    settings.setProperty(DependencyCheckMetrics.LIBRARY_GLOBAL_PROPERTY, resource("/dependencies.xml"));
+    settings.setProperty(DependencyCheckMetrics.LICENSE_PROPERTY, resource("/licenses.xml"));
+    return settings;
+  }
+
+  private static String resource(String name) throws Exception {
+    StringWriter buffer = new StringWriter();
+    IOUtils.copy(new InputStreamReader(DependencyPolicyCacheTest.class.getResourceAsStream(name), "UTF-8"), buffer);
+    return buffer.toString();
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link DependencyReportFormat}
+ */
+public class DependencyReportFormatTest {
+
+  private static final String[] ROW = {"group:project", "group:lib", "compile", "1.0", "The \"X\" License", "WRONG_VERSION", null};
+
+  private final DependencyReportFormat format = new DependencyReportFormat();
+
+  @Test
+  public void csv() {
+    assertThat(format.header(DependencyReportFormat.CSV), is("\"project\",\"library\",\"usage\",\"version\",\"license\",\"status\",\"allowedVersions\"\r\n"));
+    assertThat(format.row(DependencyReportFormat.CSV, ROW),
+        is("\"group:project\",\"group:lib\",\"compile\",\"1.0\",\"The \"\"X\"\" License\",\"WRONG_VERSION\",\"\"\r\n"));
+  }
+
+  @Test
+  public void jsonLines() {
+    assertThat(format.header(DependencyReportFormat.JSON_LINES), is(""));
+    assertThat(format.row(DependencyReportFormat.JSON_LINES, ROW),
+        is("{\"project\":\"group:project\",\"library\":\"group:lib\",\"usage\":\"compile\",\"version\":\"1.0\","
+          + "\"license\":\"The \\\"X\\\" License\",\"status\":\"WRONG_VERSION\",\"allowedVersions\":null}\n"));
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link DependencyTable}
+ */
+public class DependencyTableTest {
+
+  private static final String[] A = {"a", "compile", "1.0", "Apache", "OK", null};
+  private static final String[] B = {"B", "test", "2.0", null, "UNLISTED", null};
+  private static final String[] C = {"c", "compile", "1.0", "MIT", "WRONG_VERSION", "[2.0,)"};
+
+  @Test
+  public void sortAndPage() {
+    DependencyTable table = new DependencyTable(Arrays.asList(C, B, A));
+    assertThat(table.size(), is(3));
+    assertThat(libraries(table.page("library", true, 1, 2)), is(Arrays.asList("a", "B")));
+    assertThat(libraries(table.page("library", true, 2, 2)), is(Arrays.asList("c")));
+    assertThat(libraries(table.page("usage", true, 1, 10)), is(Arrays.asList("a", "c", "B")));
+    assertThat(libraries(table.page("usage", false, 1, 10)), is(Arrays.asList("B", "c", "a")));
+    assertThat(libraries(table.page("license", true, 1, 10)), is(Arrays.asList("B", "a", "c")));
+    assertThat(libraries(table.page("unknown", true, 1, 10)), is(Arrays.asList("a", "B", "c")));
+    assertThat(table.page("library", true, 3, 2).isEmpty(), is(true));
+  }
+
+  private static List<String> libraries(List<String[]> rows) {
+    List<String> libraries = new ArrayList<String>();
+    for (String[] row : rows) {
+      libraries.add(row[0]);
+    }
+    return libraries;
+  }
+}
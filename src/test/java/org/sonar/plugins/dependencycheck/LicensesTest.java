@@ -18,6 +18,8 @@
 package org.sonar.plugins.dependencycheck;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 
 import java.io.InputStreamReader;
@@ -36,7 +38,19 @@ public class LicensesTest {
 
     assertThat(licenses.size(), is(3));
     assertThat(licenses.get(0).getId(), is("Apache-2.0"));
+    assertThat(licenses.get(0).getUrl(), is("http://www.apache.org/licenses/LICENSE-2.0"));
     assertThat(licenses.get(1).getSourceType(), is(SourceType.OPENSOURCE_NO_COPYLEFT));
+    assertThat(licenses.get(1).getTitle(), is("Glue Standard License"));
+    assertThat(licenses.get(1).getDescription(), nullValue());
+    assertThat(licenses.get(2).getId(), notNullValue());
+  }
+
+  @Test
+  public void emptyValuesMissing() {
+    License license = Licenses.loadFromXml("<licenses><license><id>MIT</id><title/><description> </description></license></licenses>", true)
+        .get(0);
+    assertThat(license.getTitle(), nullValue());
+    assertThat(license.getDescription(), nullValue());
   }
 
 }
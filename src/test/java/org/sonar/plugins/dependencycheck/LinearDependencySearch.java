@@ -0,0 +1,50 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.util.List;
+
+/**
+ * Searches the most specific allowed dependency by scanning the list, with the same semantics as the
+ * {@link AllowedDependencyIndex}. The reference the index is tested and benchmarked against.
+ */
+final class LinearDependencySearch {
+
+  private LinearDependencySearch() {
+  }
+
+  /**
+   * @param dependencyKey the key of the currently handled dependency
+   * @param allowedDependencies the allowed dependencies
+   * @return the matching allowed dependency or null if the dependency is not listed
+   */
+  static AllowedDependency search(String dependencyKey, List<AllowedDependency> allowedDependencies) {
+    AllowedDependencyIndex.Entry match = null;
+    int position = 0;
+    for (AllowedDependency allowedDependency : allowedDependencies) {
+      if (allowedDependency.getKey() != null) {
+        AllowedDependencyIndex.Entry entry = new AllowedDependencyIndex.Entry(allowedDependency, position);
+        if (entry.isMoreSpecificThan(match) && entry.matches(dependencyKey)) {
+          match = entry;
+        }
+      }
+      position++;
+    }
+    return match != null ? match.getAllowedDependency() : null;
+  }
+}
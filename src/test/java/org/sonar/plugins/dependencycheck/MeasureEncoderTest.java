@@ -0,0 +1,94 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link MeasureEncoder}, {@link MeasureDecoder} and {@link LegacyMeasureDecoder}
+ */
+public class MeasureEncoderTest {
+
+  @Test
+  public void encodeAndDecode() {
+    String data = MeasureEncoder.encode(Arrays.asList(
+        MeasureEncoder.dependencyEntry("org.acme:lib", "1.0", "compile", "Acme ~ License; v2", "OK", ""),
+        MeasureEncoder.dependencyEntry("org.acme:other", "2.0", "runtime", null, "WRONG_VERSION", "[1.0,2.0)")));
+
+    assertThat(MeasureDecoder.isLegacy(data), is(false));
+    List<String> entries = MeasureDecoder.entries(data);
+    assertThat(entries.size(), is(2));
+    assertThat(MeasureDecoder.fields(entries.get(0)), is(Arrays.asList("org.acme:lib", "1.0", "compile", "Acme ~ License; v2", "OK", "")));
+    assertThat(MeasureDecoder.fields(entries.get(1)), is(Arrays.asList("org.acme:other", "2.0", "runtime", "", "WRONG_VERSION", "[1.0,2.0)")));
+    assertThat(MeasureDecoder.entries(MeasureEncoder.encode(Collections.<String>emptyList())).isEmpty(), is(true));
+  }
+
+  @Test
+  public void fieldsWithLengthPrefixes() {
+    String entry = MeasureEncoder.entry("12:ab", "", "\u00e4:;~");
+    assertThat(MeasureDecoder.fields(entry), is(Arrays.asList("12:ab", "", "\u00e4:;~")));
+  }
+
+  /**
+   * The length prefix of an entry must not decide its order.
+   */
+  @Test
+  public void entriesOrderedByFields() {
+    String longKey = MeasureEncoder.dependencyEntry("a.long.group:artifact", "1.0", "compile", "", "OK", "");
+    String shortKey = MeasureEncoder.dependencyEntry("b:c", "1.0", "compile", "", "OK", "");
+    String otherVersion = MeasureEncoder.dependencyEntry("b:c", "10.0", "compile", "", "OK", "");
+    List<String> entries = Arrays.asList(otherVersion, shortKey, longKey);
+    Collections.sort(entries, MeasureDecoder.ENTRY_ORDER);
+
+    assertThat(entries, is(Arrays.asList(longKey, shortKey, otherVersion)));
+    assertThat(MeasureDecoder.ENTRY_ORDER.compare(shortKey, MeasureEncoder.dependencyEntry("b:c", "1.0", "compile", "", "OK", "")), is(0));
+    assertThat(MeasureDecoder.ENTRY_ORDER.compare(MeasureEncoder.entry("b"), MeasureEncoder.entry("b", "")) < 0, is(true));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void truncatedData() {
+    String data = MeasureEncoder.encode(Arrays.asList(MeasureEncoder.licenseEntry("MIT", 3, SourceType.OPENSOURCE_NO_COPYLEFT, false)));
+    MeasureDecoder.entries(data.substring(0, data.length() - 2));
+  }
+
+  @Test
+  public void decodeLegacyData() {
+    String data = "org.acme:lib~Apache~OK;org.acme:other~no license information~UNLISTED;";
+    assertThat(MeasureDecoder.isLegacy(data), is(true));
+    List<String> entries = LegacyMeasureDecoder.entries(data);
+    assertThat(entries, is(Arrays.asList("org.acme:lib~Apache~OK", "org.acme:other~no license information~UNLISTED")));
+    assertThat(LegacyMeasureDecoder.fields(entries.get(1)).get(2), is("UNLISTED"));
+    assertThat(LegacyMeasureDecoder.entries(null).isEmpty(), is(true));
+
+    // the legacy format was written without escaping
+    assertThat(LegacyMeasureDecoder.fields("org.acme:lib~~C:\\licenses\\~"), is(Arrays.asList("org.acme:lib", "", "C:\\licenses\\", "")));
+  }
+
+  @Test
+  public void convertLegacyData() {
+    List<String> entries = LegacyMeasureDecoder.toDependencyEntries("org.acme:lib~Apache~WRONG_VERSION~[1.0,);");
+    assertThat(MeasureDecoder.fields(entries.get(0)), is(Arrays.asList("org.acme:lib", "", "", "", "WRONG_VERSION", "[1.0,)")));
+  }
+}
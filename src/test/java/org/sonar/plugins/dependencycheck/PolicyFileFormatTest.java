@@ -0,0 +1,90 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link PolicyFileFormat}
+ */
+public class PolicyFileFormatTest {
+
+  private static final Set<String> LICENSES = new HashSet<String>(Arrays.asList("Apache-2.0", "GPL"));
+  private static final List<AllowedDependency> DEPENDENCIES = Arrays.asList(
+      new AllowedDependency("group:a", "[1.0,)", "Apache-2.0", null),
+      new AllowedDependency("group:\"b\" & c", null, null, null));
+
+  private final PolicyFileFormat format = new PolicyFileFormat();
+
+  @Test
+  public void roundTrip() {
+    for (String type : Arrays.asList(PolicyFileFormat.CSV, PolicyFileFormat.XML, PolicyFileFormat.JSON_LINES)) {
+      StringBuilder file = new StringBuilder(format.header(type));
+      for (AllowedDependency dependency : DEPENDENCIES) {
+        file.append(format.row(type, dependency));
+      }
+      file.append(format.footer(type));
+
+      List<String> errors = new ArrayList<String>();
+      List<AllowedDependency> read = PolicyFileFormat.read(type, new StringReader(file.toString()), LICENSES, errors);
+      assertThat(type, errors, is(Collections.<String>emptyList()));
+      // empty CSV fields are read as missing
+      assertThat(type, read, is(DEPENDENCIES));
+    }
+  }
+
+  @Test
+  public void errorsPerLine() {
+    String csv = "group:a,\"[1.0,)\",Apache-2.0\n"
+      + ",\"[1.0,)\",GPL\n"
+      + "group:c,[1.0,GPL\n"
+      + "\n"
+      + "group:d,,Unknown\n"
+      + "\"group:e,1.0\n";
+    List<String> errors = new ArrayList<String>();
+    List<AllowedDependency> read = PolicyFileFormat.read(PolicyFileFormat.CSV, new StringReader(csv), LICENSES, errors);
+    assertThat(read.size(), is(1));
+    assertThat(errors, is(Arrays.asList(
+        "Line 2: The key of the dependency is missing.",
+        "Line 3: Invalid version range '[1.0'.",
+        "Line 5: License 'Unknown' does not exist.",
+        "Line 6: Unterminated quoted field.")));
+  }
+
+  @Test
+  public void jsonFields() {
+    assertThat(PolicyFileFormat.jsonFields(" {\"licenseId\": null, \"key\":\"a\\\"\\u0041\", \"versionRange\": 1.0, \"other\": true} "),
+        is(new String[] {"a\"A", "1.0", null}));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidJson() {
+    PolicyFileFormat.jsonFields("{\"key\": \"a\"");
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.config.Settings;
+
+/**
+ * Unit tests for {@link PolicyStore}
+ */
+public class PolicyStoreTest {
+
+  private static final String ALLOWED = "<allowed-dependencies>"
+    + "<dependency><key>group:apache-</key><versionRange>[1.0,)</versionRange><licenseId>Apache-2.0</licenseId></dependency>"
+    + "</allowed-dependencies>";
+  private static final String LICENSES = "<licenses>"
+    + "<license><id>Apache-2.0</id><title>Apache</title><description><![CDATA[<b>permissive</b>]]></description></license>"
+    + "<license><id>GPL</id><title>GPL</title><sourceType>OPENSOURCE_COPYLEFT</sourceType></license>"
+    + "</licenses>";
+
+  private Settings settings;
+  private PolicyStore store;
+
+  @Before
+  public void setUp() {
+    settings = new Settings();
+    settings.setProperty(DependencyCheckMetrics.LIBRARY_GLOBAL_PROPERTY, ALLOWED);
+    settings.setProperty(DependencyCheckMetrics.LICENSE_PROPERTY, LICENSES);
+    store = new PolicyStore(settings, new PolicyCompiler());
+  }
+
+  @Test
+  public void addAndDeleteDependency() {
+    PolicyChange change = save(store.addDependency(store.getVersion(), "group:gpl", "[2.0,)", "GPL"));
+    assertThat(change.isRejected(), is(false));
+    assertThat(change.getLicenseXml(), nullValue());
+    assertThat(change.getVersion(), is(store.getVersion()));
+    assertThat(AllowedDependencies.loadFromXml(change.getGlobalXml()).get(1), is(new AllowedDependency("group:gpl", "[2.0,)", "GPL", null)));
+    assertThat(store.getDependents("GPL").size(), is(1));
+    assertThat(CompiledPolicy.decode(change.getCompiledPolicy()).getSourceHash(), is(change.getVersion()));
+
+    change = save(store.deleteDependency(change.getVersion(), 0));
+    assertThat(AllowedDependencies.loadFromXml(change.getGlobalXml()).size(), is(1));
+    assertThat(store.getDependents("Apache-2.0").size(), is(0));
+  }
+
+  @Test
+  public void concurrentChangeRejected() {
+    String version = store.getVersion();
+    assertThat(save(store.addDependency(version, "group:a", "[1.0,)", "GPL")).isRejected(), is(false));
+    assertThat(store.addDependency(version, "group:b", "[1.0,)", "GPL").isRejected(), is(true));
+    assertThat(store.getDependencies().size(), is(2));
+  }
+
+  @Test
+  public void licenseInUseNotDeleted() {
+    assertThat(store.deleteLicense(store.getVersion(), "Apache-2.0").getError(),
+        is("License 'Apache-2.0' cannot be deleted because dependencies are using it."));
+    PolicyChange change = save(store.deleteLicense(store.getVersion(), "GPL"));
+    assertThat(change.isRejected(), is(false));
+    assertThat(change.getGlobalXml(), nullValue());
+
+    // the description is kept
+    License apache = Licenses.loadFromXml(change.getLicenseXml(), true).get(0);
+    assertThat(apache.getDescription(), is("<b>permissive</b>"));
+    assertThat(Licenses.loadFromXml(change.getLicenseXml()).size(), is(1));
+  }
+
+  @Test
+  public void duplicateLicenseRejected() {
+    assertThat(store.addLicense(store.getVersion(), "GPL", "GPL", null, null, "CLOSED", "false").isRejected(), is(true));
+    PolicyChange change = store.updateLicense(store.getVersion(), "GPL", "GPL 3", null, null, "OPENSOURCE_COPYLEFT", "false");
+    assertThat(Licenses.loadFromXml(change.getLicenseXml()).get(1).getTitle(), is("GPL 3"));
+  }
+
+  @Test
+  public void changedSettingsReloaded() {
+    String version = store.getVersion();
+    settings.setProperty(DependencyCheckMetrics.LIBRARY_GLOBAL_PROPERTY, "<allowed-dependencies></allowed-dependencies>");
+    assertThat(store.deleteDependency(version, 0).isRejected(), is(true));
+    assertThat(store.getDependencies().size(), is(0));
+  }
+
+  @Test
+  public void importIsAllOrNothing() {
+    String invalid = "<allowed-dependencies>"
+      + "<dependency><key>group:a</key><versionRange>[1.0,)</versionRange><licenseId>GPL</licenseId></dependency>"
+      + "<dependency><key>group:b</key><versionRange>[1.0,)</versionRange><licenseId>Unknown</licenseId></dependency>"
+      + "</allowed-dependencies>";
+    assertThat(store.importDependencies(store.getVersion(), invalid).getError(), is("Dependency 2: License 'Unknown' does not exist."));
+    assertThat(store.getDependencies().size(), is(1));
+
+    PolicyChange change = save(store.importDependencies(store.getVersion(), invalid.replace("Unknown", "Apache-2.0")));
+    assertThat(change.isRejected(), is(false));
+    assertThat(store.getDependencies().size(), is(2));
+    assertThat(store.getDependents("GPL").size(), is(1));
+  }
+
+  @Test
+  public void importWithoutVersion() {
+    save(store.addDependency(store.getVersion(), "group:a", "[1.0,)", "GPL"));
+    PolicyChange change = save(store.importDependencies(null, PolicyFileFormat.CSV, "key,versionRange,licenseId\ngroup:gpl,\"[2.0,)\",GPL\n"));
+    assertThat(change.isRejected(), is(false));
+    assertThat(store.getDependencies(), is(Arrays.asList(new AllowedDependency("group:gpl", "[2.0,)", "GPL", null))));
+    assertThat(store.getDependents("Apache-2.0").size(), is(0));
+  }
+
+  @Test
+  public void onlySavedChangesAdopted() {
+    AllowedDependency apache = store.getDependencies().get(0);
+    String version = store.getVersion();
+
+    // the change has not been saved yet
+    PolicyChange change = store.addDependency(version, "group:gpl", "[2.0,)", "GPL");
+    assertThat(store.getVersion(), is(version));
+    assertThat(store.getDependencies().size(), is(1));
+
+    // the saved XML is not parsed again
+    save(change);
+    assertThat(store.getVersion(), is(change.getVersion()));
+    assertThat(store.getDependencies().get(0), sameInstance(apache));
+    assertThat(store.getDependencies().get(1), is(new AllowedDependency("group:gpl", "[2.0,)", "GPL", null)));
+    assertThat(CompiledPolicy.decode(change.getCompiledPolicy()).getDependencies().size(), is(2));
+  }
+
+  @Test
+  public void concurrentSaveRejected() {
+    String version = store.getVersion();
+    PolicyChange first = store.addDependency(version, "group:a", "[1.0,)", "GPL");
+    PolicyChange second = store.addDependency(version, "group:b", "[1.0,)", "GPL");
+    assertThat(save(first).isRejected(), is(false));
+
+    PolicyChange lost = save(second);
+    assertThat(lost.getError(), is("The configuration has been changed in the meantime, please check the changes and try again."));
+    assertThat(AllowedDependencies.loadFromXml(settings.getString(DependencyCheckMetrics.LIBRARY_GLOBAL_PROPERTY)).get(1).getKey(),
+        is("group:a"));
+    assertThat(store.getDependencies().size(), is(2));
+  }
+
+  @Test
+  public void failedWriteNotAdopted() {
+    settings.setProperty(DependencyCheckMetrics.COMPILED_POLICY_PROPERTY, CompiledPolicy.compile(ALLOWED, LICENSES));
+    PolicyChange change = store.save(store.addDependency(store.getVersion(), "group:gpl", "[2.0,)", "GPL"),
+        new PolicyStore.PropertyWriter() {
+          public void set(String key, String value) {
+            if (DependencyCheckMetrics.COMPILED_POLICY_PROPERTY.equals(key)) {
+              throw new IllegalStateException("database unavailable");
+            }
+            settings.setProperty(key, value);
+          }
+        });
+    assertThat(change.getError(), is("The configuration could not be saved: database unavailable"));
+
+    // the written XML is read again, the analyses do not use the outdated compiled policy
+    assertThat(store.getDependencies().size(), is(2));
+    assertThat(new DependencyPolicyCache().getPolicy(settings).find("group:gpl").getVersionRange(), is("[2.0,)"));
+  }
+
+  @Test
+  public void invalidVersionRangeRejected() {
+    assertThat(store.addDependency(store.getVersion(), "group:a", " [1.2 ", "GPL").getError(), is("Invalid version range '[1.2'."));
+    assertThat(store.updateDependency(store.getVersion(), 0, "group:a", "", "GPL").isRejected(), is(false));
+  }
+
+  /**
+   * Saves a change like the configuration page.
+   */
+  private PolicyChange save(PolicyChange change) {
+    return store.save(change, new PolicyStore.PropertyWriter() {
+      public void set(String key, String value) {
+        settings.setProperty(key, value);
+      }
+    });
+  }
+}
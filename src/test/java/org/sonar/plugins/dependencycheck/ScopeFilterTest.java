@@ -0,0 +1,50 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.EnumSet;
+
+import org.junit.Test;
+import org.sonar.api.config.Settings;
+import org.sonar.api.design.Dependency;
+import org.sonar.api.resources.Library;
+import org.sonar.api.resources.Project;
+
+public class ScopeFilterTest {
+
+  @Test
+  public void fromSettings() {
+    Settings settings = new Settings();
+    settings.setProperty(DependencyCheckMetrics.SCOPE_COMPILE_PROPERTY, true);
+    settings.setProperty(DependencyCheckMetrics.SCOPE_TEST_PROPERTY, false);
+    settings.setProperty(DependencyCheckMetrics.SCOPE_ADDITIONAL_PROPERTY, "system, Import,unknown");
+
+    ScopeFilter filter = ScopeFilter.fromSettings(settings);
+    assertThat(filter.getScopes(), is((Object) EnumSet.of(DependencyScope.COMPILE, DependencyScope.SYSTEM, DependencyScope.IMPORT)));
+    assertThat(filter.accepts(dependency("system")), is(true));
+    assertThat(filter.accepts(dependency("test")), is(false));
+    assertThat(filter.accepts(dependency(null)), is(false));
+  }
+
+  private static Dependency dependency(String usage) {
+    return new Dependency(new Project("group:module"), new Library("group:lib", "1.0")).setUsage(usage);
+  }
+}
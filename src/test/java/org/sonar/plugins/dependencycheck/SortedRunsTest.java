@@ -0,0 +1,52 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class SortedRunsTest {
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void mergeAndRemoveDuplicates() {
+    List<String> merged = SortedRuns.merge(Arrays.asList(
+        Arrays.asList("a", "c", "e"),
+        Collections.<String>emptyList(),
+        Arrays.asList("b", "c", "f"),
+        Arrays.asList("a", "d")));
+
+    assertThat(merged, is(Arrays.asList("a", "b", "c", "d", "e", "f")));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void mergeWithComparator() {
+    List<String> merged = SortedRuns.merge(Arrays.asList(
+        Arrays.asList("e", "c", "a"),
+        Arrays.asList("d", "c", "b")), Collections.<String>reverseOrder());
+
+    assertThat(merged, is(Arrays.asList("e", "d", "c", "b", "a")));
+  }
+}
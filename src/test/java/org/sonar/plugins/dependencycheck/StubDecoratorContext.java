@@ -0,0 +1,155 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.sonar.api.batch.DecoratorContext;
+import org.sonar.api.batch.Event;
+import org.sonar.api.design.Dependency;
+import org.sonar.api.measures.Measure;
+import org.sonar.api.measures.MeasuresFilter;
+import org.sonar.api.measures.Metric;
+import org.sonar.api.resources.Project;
+import org.sonar.api.resources.Resource;
+
+/**
+ * {@link DecoratorContext} for a module, keeps the saved measures in memory.
+ */
+@SuppressWarnings("deprecation")
+public class StubDecoratorContext implements DecoratorContext {
+
+  private final Project project;
+  private final Set<Dependency> dependencies;
+  private final List<DecoratorContext> children = new ArrayList<DecoratorContext>();
+  private final Map<String, Measure> measures = new HashMap<String, Measure>();
+
+  /**
+   * @param project the decorated module
+   * @param dependencies all dependencies of the analysis
+   */
+  public StubDecoratorContext(Project project, Set<Dependency> dependencies) {
+    this.project = project;
+    this.dependencies = dependencies;
+  }
+
+  /**
+   * @param child context of a child module
+   * @return this context
+   */
+  public StubDecoratorContext addChild(DecoratorContext child) {
+    children.add(child);
+    return this;
+  }
+
+  public Project getProject() {
+    return project;
+  }
+
+  public Resource getResource() {
+    return project;
+  }
+
+  public List<DecoratorContext> getChildren() {
+    return children;
+  }
+
+  public Measure getMeasure(Metric metric) {
+    return measures.get(metric.getKey());
+  }
+
+  public <M> M getMeasures(MeasuresFilter<M> filter) {
+    return filter.filter(measures.values());
+  }
+
+  public Collection<Measure> getChildrenMeasures(MeasuresFilter filter) {
+    throw new UnsupportedOperationException();
+  }
+
+  public Collection<Measure> getChildrenMeasures(Metric metric) {
+    List<Measure> result = new ArrayList<Measure>();
+    for (DecoratorContext child : children) {
+      Measure measure = child.getMeasure(metric);
+      if (measure != null) {
+        result.add(measure);
+      }
+    }
+    return result;
+  }
+
+  public DecoratorContext saveMeasure(Measure measure) {
+    measures.put(measure.getMetricKey(), measure);
+    return this;
+  }
+
+  public DecoratorContext saveMeasure(Metric metric, Double value) {
+    return saveMeasure(new Measure(metric, value));
+  }
+
+  public Dependency saveDependency(Dependency dependency) {
+    dependencies.add(dependency);
+    return dependency;
+  }
+
+  public Set<Dependency> getDependencies() {
+    return dependencies;
+  }
+
+  public Collection<Dependency> getIncomingDependencies() {
+    return Collections.emptyList();
+  }
+
+  public Collection<Dependency> getOutgoingDependencies() {
+    return Collections.emptyList();
+  }
+
+  public List<org.sonar.api.rules.Violation> getViolations(org.sonar.api.violations.ViolationQuery violationQuery) {
+    return Collections.emptyList();
+  }
+
+  public List<org.sonar.api.rules.Violation> getViolations() {
+    return Collections.emptyList();
+  }
+
+  public DecoratorContext saveViolation(org.sonar.api.rules.Violation violation, boolean force) {
+    return this;
+  }
+
+  public DecoratorContext saveViolation(org.sonar.api.rules.Violation violation) {
+    return this;
+  }
+
+  public List<Event> getEvents() {
+    return Collections.emptyList();
+  }
+
+  public Event createEvent(String name, String description, String category, Date date) {
+    throw new UnsupportedOperationException();
+  }
+
+  public void deleteEvent(Event event) {
+    throw new UnsupportedOperationException();
+  }
+}
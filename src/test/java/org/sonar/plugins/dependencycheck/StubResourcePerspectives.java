@@ -0,0 +1,127 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.sonar.api.component.Component;
+import org.sonar.api.component.Perspective;
+import org.sonar.api.component.ResourcePerspectives;
+import org.sonar.api.issue.Issuable;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.issue.internal.DefaultIssue;
+import org.sonar.api.resources.Resource;
+import org.sonar.api.rule.RuleKey;
+
+/**
+ * {@link ResourcePerspectives} collecting the issues of all resources in one list.
+ */
+public class StubResourcePerspectives implements ResourcePerspectives {
+
+  private final List<Issue> issues = new ArrayList<Issue>();
+  private int lookups;
+
+  public List<Issue> getIssues() {
+    return issues;
+  }
+
+  /**
+   * @return how often an {@link Issuable} has been requested
+   */
+  public int getLookups() {
+    return lookups;
+  }
+
+  public <P extends Perspective> P as(Class<P> perspectiveClass, Resource resource) {
+    lookups++;
+    return perspectiveClass == Issuable.class ? perspectiveClass.cast(new StubIssuable(resource)) : null;
+  }
+
+  public <P extends Perspective> P as(Class<P> perspectiveClass, Component component) {
+    throw new UnsupportedOperationException();
+  }
+
+  private final class StubIssuable implements Issuable {
+    private final Resource resource;
+
+    private StubIssuable(Resource resource) {
+      this.resource = resource;
+    }
+
+    public IssueBuilder newIssueBuilder() {
+      final DefaultIssue issue = new DefaultIssue().setComponentKey(resource.getKey());
+      return new IssueBuilder() {
+        public IssueBuilder ruleKey(RuleKey ruleKey) {
+          issue.setRuleKey(ruleKey);
+          return this;
+        }
+
+        public IssueBuilder line(Integer line) {
+          issue.setLine(line);
+          return this;
+        }
+
+        public IssueBuilder message(String message) {
+          issue.setMessage(message);
+          return this;
+        }
+
+        public IssueBuilder severity(String severity) {
+          issue.setSeverity(severity);
+          return this;
+        }
+
+        public IssueBuilder reporter(String reporter) {
+          return this;
+        }
+
+        public IssueBuilder effortToFix(Double d) {
+          return this;
+        }
+
+        public IssueBuilder attribute(String key, String value) {
+          issue.setAttribute(key, value);
+          return this;
+        }
+
+        public Issue build() {
+          return issue;
+        }
+      };
+    }
+
+    public boolean addIssue(Issue issue) {
+      issues.add(issue);
+      return true;
+    }
+
+    public List<Issue> issues() {
+      return issues;
+    }
+
+    public List<Issue> resolvedIssues() {
+      return Collections.emptyList();
+    }
+
+    public Component component() {
+      return null;
+    }
+  }
+}
@@ -18,12 +18,8 @@
 package org.sonar.plugins.dependencycheck;
 
 import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import org.junit.Test;
 
 /**
@@ -31,17 +27,6 @@ import org.junit.Test;
  */
 public class UtilitiesTest {
 
-  /**
-   * Tests Function Utilities.dependencyInList(Dependency d, List<ProjectDependency> allowedProjectDependencies)
-   */
-  @Test
-  public void dependencyInListTest() {
-    List<AllowedDependency> allowedProjectDependencies = new ArrayList<AllowedDependency>();
-    allowedProjectDependencies.add(new AllowedDependency("test.to.key", "1.2.3", null));
-
-    assertNotNull(Utilities.searchForProjectDependency("test.to.key", allowedProjectDependencies));
-  }
-
   /**
    * Tests Function {@link Utilities#versionAllowed(String, String)} for cases where every vesion is allowed
    */
@@ -94,4 +79,15 @@ public class UtilitiesTest {
     assertTrue(Utilities.versionAllowed("4.0.9.RELEASE", "[3.1.4.RELEASE,3.2),[3.2.8.RELEASE,3.3),[4.0.7.RELEASE,)"));
     assertFalse(Utilities.versionAllowed("3.2.7.RELEASE", "[4.0.7.RELEASE,),[3.1.4.RELEASE,3.2),[3.2.8.RELEASE,3.3)"));
   }
+
+  /**
+   * Tests Function {@link Utilities#versionAllowed(String, org.apache.maven.artifact.versioning.VersionRange)} with
+   * ranges parsed when the allowed dependency is created
+   */
+  @Test
+  public void dependencyVersionRangeParsedTest() {
+    assertTrue(Utilities.versionAllowed("1.2.3", new AllowedDependency("test.to.key", "[1.2.0,1.2.8)", null).getParsedVersionRange()));
+    assertFalse(Utilities.versionAllowed("1.2.3", new AllowedDependency("test.to.key", "[1.2.4,)", null).getParsedVersionRange()));
+    assertFalse(Utilities.versionAllowed("1.2.3", new AllowedDependency("test.to.key", "[1.2", null).getParsedVersionRange()));
+  }
 }
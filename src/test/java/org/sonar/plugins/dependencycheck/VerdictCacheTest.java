@@ -0,0 +1,90 @@
+/*
+ * Sonar Dependency Check Plugin
+ * Copyright (C) 2013 Porsche Informatik
+ * dev@sonar.codehaus.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sonar.plugins.dependencycheck;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link VerdictCache}
+ */
+public class VerdictCacheTest {
+
+  private static final DependencyVerdict WRONG_VERSION = new DependencyVerdict(DependencyVerdict.WRONG_VERSION, "Apache-2.0", "[1.0,)");
+  private static final DependencyVerdict OK = new DependencyVerdict(DependencyVerdict.OK, "Apache-2.0", "");
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void disabled() {
+    VerdictCache cache = new VerdictCache(new File(temp.getRoot(), VerdictCache.FILE_NAME));
+    assertThat(cache.open(0), is(false));
+    cache.put("ns", "group:lib", "1.0", WRONG_VERSION);
+    assertThat(cache.get("ns", "group:lib", "1.0"), nullValue());
+  }
+
+  @Test
+  public void storedAfterStop() {
+    File file = new File(temp.getRoot(), VerdictCache.FILE_NAME);
+    VerdictCache cache = new VerdictCache(file);
+    assertThat(cache.open(10), is(true));
+    cache.put("ns", "group:lib", "1.0", WRONG_VERSION);
+    cache.stop();
+
+    VerdictCache reopened = new VerdictCache(file);
+    reopened.open(10);
+    DependencyVerdict verdict = reopened.get("ns", "group:lib", "1.0");
+    assertThat(verdict.getStatus(), is(DependencyVerdict.WRONG_VERSION));
+    assertThat(verdict.getLicenseId(), is("Apache-2.0"));
+    assertThat(verdict.getAllowedRange(), is("[1.0,)"));
+    assertThat(reopened.get("other", "group:lib", "1.0"), nullValue());
+    assertThat(reopened.get("ns", "group:lib", "2.0"), nullValue());
+  }
+
+  @Test
+  public void leastRecentlyUsedEvicted() {
+    VerdictCache cache = new VerdictCache(new File(temp.getRoot(), VerdictCache.FILE_NAME));
+    cache.open(2);
+    cache.put("ns", "group:a", "1.0", OK);
+    cache.put("ns", "group:b", "1.0", OK);
+    cache.get("ns", "group:a", "1.0");
+    cache.put("ns", "group:c", "1.0", OK);
+
+    assertThat(cache.get("ns", "group:a", "1.0"), is(OK));
+    assertThat(cache.get("ns", "group:b", "1.0"), nullValue());
+    assertThat(cache.get("ns", "group:c", "1.0"), is(OK));
+  }
+
+  @Test
+  public void invalidFileIgnored() throws Exception {
+    File file = new File(temp.getRoot(), VerdictCache.FILE_NAME);
+    FileUtils.writeStringToFile(file, "#2|garbage", "UTF-8");
+    VerdictCache cache = new VerdictCache(file);
+    assertThat(cache.open(10), is(true));
+    assertThat(cache.get("ns", "group:lib", "1.0"), nullValue());
+  }
+}